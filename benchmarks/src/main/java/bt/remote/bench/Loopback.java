@@ -0,0 +1,167 @@
+package bt.remote.bench;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import bt.remote.socket.ObjectClient;
+import bt.remote.socket.Server;
+import bt.remote.socket.ServerClient;
+import bt.remote.socket.data.BinaryFrameCodec;
+import bt.remote.socket.data.DataProcessor;
+import bt.remote.socket.data.FrameCodec;
+import bt.remote.socket.data.SerializationFrameCodec;
+import bt.remote.socket.evnt.server.NewClientConnection;
+import bt.remote.socket.nio.SelectorServer;
+
+/**
+ * Sets up echo servers and connected clients on the loopback interface.
+ *
+ * @author &#8904
+ */
+public final class Loopback
+{
+    /** Answers every request with its own data. */
+    public static final DataProcessor ECHO = incoming -> incoming.get();
+
+    /** The time in seconds that {@link #connect(WireFormat, Server, int)} waits for the server to register a client. */
+    private static final int CONNECT_TIMEOUT = 10;
+
+    /** One permit per connection registered by a server started by {@link #startServer(WireFormat, int)}. */
+    private static final Map<Server, Semaphore> CONNECTIONS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private Loopback()
+    {
+    }
+
+    /**
+     * @return A port that was free at the time of the call.
+     * @throws IOException
+     */
+    public static int freePort() throws IOException
+    {
+        try (var socket = new ServerSocket(0))
+        {
+            return socket.getLocalPort();
+        }
+    }
+
+    public static FrameCodec codecOf(WireFormat format)
+    {
+        switch (format)
+        {
+            case SERIALIZATION_FRAME:
+                return new SerializationFrameCodec();
+            case BINARY_FRAME:
+            case SELECTOR_BINARY_FRAME:
+                return new BinaryFrameCodec();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Starts an echo server for the given format.
+     *
+     * @param format
+     * @param port
+     * @return
+     * @throws IOException
+     */
+    public static Server startServer(WireFormat format, int port) throws IOException
+    {
+        Server server;
+
+        if (format == WireFormat.SELECTOR_BINARY_FRAME)
+        {
+            server = new SelectorServer(port)
+            {
+                @Override
+                protected void configureClient(ServerClient client)
+                {
+                    super.configureClient(client);
+                    configureEcho(client);
+                }
+            };
+        }
+        else
+        {
+            server = new Server(port)
+            {
+                @Override
+                protected void configureClient(ServerClient client)
+                {
+                    super.configureClient(client);
+                    configureEcho(client);
+                }
+            };
+        }
+
+        var connections = new Semaphore(0);
+        CONNECTIONS.put(server, connections);
+        server.getEventDispatcher().subscribeTo(NewClientConnection.class, e -> connections.release());
+
+        server.setFrameCodec(codecOf(format));
+        server.start();
+        return server;
+    }
+
+    private static void configureEcho(ServerClient client)
+    {
+        client.setDataProcessor(ECHO);
+        client.setSendKeepAlives(false);
+    }
+
+    /**
+     * Connects a new client to the server started by {@link #startServer(WireFormat, int)} and waits until the server
+     * has registered it.
+     *
+     * @param format
+     * @param server
+     * @param port
+     * @return
+     * @throws InterruptedException
+     */
+    public static ObjectClient connect(WireFormat format, Server server, int port) throws InterruptedException
+    {
+        return connect(format, server, port, 0, 0);
+    }
+
+    /**
+     * Connects a new client to the server started by {@link #startServer(WireFormat, int)} and waits until the server
+     * has registered it.
+     *
+     * @param format
+     * @param server
+     * @param port
+     * @param batchSize
+     *            The maximum batch size of the client or 0 to disable write batching.
+     * @param lingerMicros
+     *            The time in microseconds that the writer of the client waits to fill up a batch.
+     * @return
+     * @throws InterruptedException
+     * @throws IllegalStateException
+     *             If the server did not register the client in time.
+     */
+    public static ObjectClient connect(WireFormat format, Server server, int port, int batchSize, long lingerMicros) throws InterruptedException
+    {
+        var client = new ObjectClient("localhost", port);
+        client.setFrameCodec(codecOf(format));
+        client.setSendKeepAlives(false);
+        client.setWriteBatching(batchSize, lingerMicros);
+        client.start();
+
+        // connections are set up one at a time, so the next registration belongs to this client
+        if (!CONNECTIONS.get(server).tryAcquire(CONNECT_TIMEOUT, TimeUnit.SECONDS))
+        {
+            client.kill();
+            throw new IllegalStateException("Server did not register the client within " + CONNECT_TIMEOUT + " seconds");
+        }
+
+        return client;
+    }
+}
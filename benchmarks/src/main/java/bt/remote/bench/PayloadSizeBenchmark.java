@@ -0,0 +1,67 @@
+package bt.remote.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bt.remote.socket.ObjectClient;
+import bt.remote.socket.Server;
+
+/**
+ * Measures the round trip time of byte array payloads of different sizes.
+ *
+ * @author &#8904
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadSizeBenchmark
+{
+    @Param({ "OBJECT_STREAM", "BINARY_FRAME", "SELECTOR_BINARY_FRAME" })
+    public WireFormat format;
+
+    @Param({ "16", "256", "4096", "65536" })
+    public int size;
+
+    private Server server;
+
+    private ObjectClient client;
+
+    private byte[] payload;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        int port = Loopback.freePort();
+        this.server = Loopback.startServer(this.format, port);
+        this.client = Loopback.connect(this.format, this.server, port);
+        this.payload = new byte[this.size];
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        this.client.kill();
+        this.server.kill();
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception
+    {
+        return this.client.sendAsync(this.payload).get(5, TimeUnit.SECONDS);
+    }
+}
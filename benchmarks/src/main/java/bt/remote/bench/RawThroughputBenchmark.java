@@ -0,0 +1,112 @@
+package bt.remote.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bt.remote.socket.RawClient;
+
+/**
+ * Measures how many chunks of raw bytes per second a {@link RawClient} can send to an echo socket and receive back.
+ * Multiply by the chunk size for bytes per second.
+ *
+ * @author &#8904
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RawThroughputBenchmark
+{
+    @Param({ "64", "1024", "16384" })
+    public int chunkSize;
+
+    private ServerSocket echoSocket;
+
+    private RawClient client;
+
+    private byte[] chunk;
+
+    private final AtomicLong received = new AtomicLong();
+
+    private long expected;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        this.echoSocket = new ServerSocket(0);
+        var echo = new Thread(this::echo, "Raw-Echo");
+        echo.setDaemon(true);
+        echo.start();
+
+        this.chunk = new byte[this.chunkSize];
+        this.client = new RawClient("localhost", this.echoSocket.getLocalPort());
+        this.client.setSingleThreadProcessing(true);
+        this.client.setByteProcessor(incoming ->
+        {
+            this.received.addAndGet(incoming.length);
+            return null;
+        });
+        this.client.start();
+    }
+
+    private void echo()
+    {
+        try (Socket socket = this.echoSocket.accept())
+        {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+
+            while ((read = in.read(buffer)) != -1)
+            {
+                out.write(buffer, 0, read);
+            }
+        }
+        catch (IOException e)
+        {
+            // the socket is closed on tear down
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        this.client.kill();
+        this.echoSocket.close();
+    }
+
+    @Benchmark
+    public long sendAndEcho()
+    {
+        this.expected += this.chunkSize;
+        this.client.send(this.chunk);
+
+        while (this.received.get() < this.expected)
+        {
+            Thread.onSpinWait();
+        }
+
+        return this.expected;
+    }
+}
@@ -0,0 +1,62 @@
+package bt.remote.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bt.remote.socket.ObjectClient;
+import bt.remote.socket.Server;
+
+/**
+ * Measures the latency distribution of a single request/response round trip. Sample time mode reports the
+ * percentiles.
+ *
+ * @author &#8904
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoundTripBenchmark
+{
+    @Param({ "OBJECT_STREAM", "SERIALIZATION_FRAME", "BINARY_FRAME", "SELECTOR_BINARY_FRAME" })
+    public WireFormat format;
+
+    private Server server;
+
+    private ObjectClient client;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        int port = Loopback.freePort();
+        this.server = Loopback.startServer(this.format, port);
+        this.client = Loopback.connect(this.format, this.server, port);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        this.client.kill();
+        this.server.kill();
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception
+    {
+        return this.client.sendAsync("ping").get(5, TimeUnit.SECONDS);
+    }
+}
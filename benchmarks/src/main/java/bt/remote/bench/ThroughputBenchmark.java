@@ -0,0 +1,133 @@
+package bt.remote.bench;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bt.remote.socket.ObjectClient;
+import bt.remote.socket.Server;
+
+/**
+ * Measures requests per second with a number of concurrent clients that each keep a window of pipelined requests in
+ * flight.
+ *
+ * <p>
+ * Every benchmark thread owns one client, so the number of concurrent clients is the number of threads of the
+ * benchmark method.
+ * </p>
+ *
+ * @author &#8904
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThroughputBenchmark
+{
+    /** The number of requests in flight per client and invocation. */
+    private static final int WINDOW = 64;
+
+    /**
+     * The echo server shared by all clients.
+     */
+    @State(Scope.Benchmark)
+    public static class ServerState
+    {
+        @Param({ "OBJECT_STREAM", "BINARY_FRAME", "SELECTOR_BINARY_FRAME" })
+        public WireFormat format;
+
+        @Param({ "0", "64" })
+        public int batchSize;
+
+        private Server server;
+
+        private int port;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception
+        {
+            this.port = Loopback.freePort();
+            this.server = Loopback.startServer(this.format, this.port);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown()
+        {
+            this.server.kill();
+        }
+    }
+
+    /**
+     * The client of a single benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class ClientState
+    {
+        private ObjectClient client;
+
+        private CompletableFuture<?>[] window;
+
+        @Setup(Level.Trial)
+        public void setup(ServerState server) throws Exception
+        {
+            this.client = Loopback.connect(server.format, server.server, server.port, server.batchSize, 20);
+            this.window = new CompletableFuture<?>[WINDOW];
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown()
+        {
+            this.client.kill();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(WINDOW)
+    public void oneClient(ClientState client) throws Exception
+    {
+        pipelined(client);
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(WINDOW)
+    public void fourClients(ClientState client) throws Exception
+    {
+        pipelined(client);
+    }
+
+    @Benchmark
+    @Threads(16)
+    @OperationsPerInvocation(WINDOW)
+    public void sixteenClients(ClientState client) throws Exception
+    {
+        pipelined(client);
+    }
+
+    private static void pipelined(ClientState state) throws Exception
+    {
+        for (int i = 0; i < WINDOW; i ++ )
+        {
+            state.window[i] = state.client.sendAsync(i);
+        }
+
+        CompletableFuture.allOf(state.window).get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,21 @@
+package bt.remote.bench;
+
+/**
+ * The wire formats compared by the benchmarks.
+ *
+ * @author &#8904
+ */
+public enum WireFormat
+{
+    /** A blocking {@link bt.remote.socket.Server} with continuous object streams. */
+    OBJECT_STREAM,
+
+    /** A blocking {@link bt.remote.socket.Server} with java serialized frames. */
+    SERIALIZATION_FRAME,
+
+    /** A blocking {@link bt.remote.socket.Server} with binary frames. */
+    BINARY_FRAME,
+
+    /** A {@link bt.remote.socket.nio.SelectorServer} with binary frames. */
+    SELECTOR_BINARY_FRAME
+}
@@ -0,0 +1,249 @@
+package bt.remote.socket;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import bt.remote.socket.buffer.BufferPool;
+import bt.remote.socket.data.BufferFrameDecoder;
+import bt.remote.socket.data.BufferProcessor;
+import bt.remote.socket.evnt.client.UnspecifiedClientException;
+import bt.remote.socket.metrics.MessageType;
+import bt.utils.Exceptions;
+import bt.utils.Null;
+
+/**
+ * A raw client that reads and writes {@link ByteBuffer buffers} through a {@link SocketChannel} instead of copying
+ * every message into a new byte array.
+ *
+ * <p>
+ * Received bytes are read into a pooled direct buffer and split into frames by a {@link BufferFrameDecoder}, for
+ * example a {@link bt.remote.socket.data.LengthFieldFrameReader LengthFieldFrameReader}. With
+ * {@link #setSingleThreadProcessing(boolean) single thread processing}, which is the default for this client, every
+ * frame is handed to the {@link BufferProcessor} as a view of the read buffer, so it is parsed in place. Otherwise the
+ * frame is copied into a pooled buffer first, because the read buffer is reused while the frame is being processed.
+ * </p>
+ *
+ * <p>
+ * Frames can not be larger than the default buffer size of the {@link #setBufferPool(BufferPool) buffer pool}, which is
+ * the shared {@link BufferPool#direct() direct pool} unless configured otherwise.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class ChannelRawClient extends Client
+{
+    /** The channel of this connection. */
+    protected SocketChannel channel;
+
+    /** Holds received bytes that do not form a complete frame yet. Only used by the reading thread. */
+    protected ByteBuffer readBuffer;
+
+    /** Splits the received bytes into frames. Null to treat all currently available bytes as one frame. */
+    protected BufferFrameDecoder frameDecoder;
+
+    /** A processor for incoming frames. */
+    protected BufferProcessor bufferProcessor;
+
+    /**
+     * Creates a new instance with the given hostname and port of the desired server.
+     *
+     * <p>
+     * This constructor will not create an actual {@link SocketChannel} yet, for that the {@link Client#start()} method
+     * needs to be called.
+     * </p>
+     *
+     * @param host
+     * @param port
+     */
+    public ChannelRawClient(String host, int port)
+    {
+        super(host, port);
+        this.bufferPool = BufferPool.direct();
+        this.singleThreadProcessing = true;
+    }
+
+    /**
+     * Reads and writes go straight through the channel, so direct buffers avoid a copy.
+     */
+    @Override
+    protected boolean supportsDirectBuffers()
+    {
+        return true;
+    }
+
+    @Override
+    protected void setupConnection() throws IOException
+    {
+        this.channel = SocketChannel.open(new InetSocketAddress(this.host, this.port));
+        this.socket = this.channel.socket();
+        this.readBuffer = this.bufferPool.acquire();
+    }
+
+    /**
+     * Releases the read buffer of the connection once its reading thread ends.
+     */
+    @Override
+    public void run()
+    {
+        ByteBuffer buffer = this.readBuffer;
+
+        try
+        {
+            super.run();
+        }
+        finally
+        {
+            this.bufferPool.release(buffer);
+        }
+    }
+
+    @Override
+    protected void readData() throws IOException
+    {
+        int bytes = this.channel.read(this.readBuffer);
+
+        if (bytes == -1)
+        {
+            throw new EOFException("Reached end of stream");
+        }
+
+        this.metrics.addBytesIn(bytes);
+
+        this.readBuffer.flip();
+
+        while (this.readBuffer.hasRemaining())
+        {
+            ByteBuffer frame;
+
+            if (this.frameDecoder == null)
+            {
+                frame = this.readBuffer.slice();
+                this.readBuffer.position(this.readBuffer.limit());
+            }
+            else if ((frame = this.frameDecoder.decode(this.readBuffer)) == null)
+            {
+                break;
+            }
+
+            handleFrame(frame);
+        }
+
+        this.readBuffer.compact();
+
+        if (!this.readBuffer.hasRemaining())
+        {
+            throw new StreamCorruptedException("Frame exceeds the read buffer size of " + this.readBuffer.capacity() + " bytes");
+        }
+    }
+
+    protected void handleFrame(ByteBuffer frame) throws IOException
+    {
+        this.metrics.messageReceived(MessageType.RAW);
+
+        if (this.singleThreadProcessing)
+        {
+            processFrame(frame);
+        }
+        else
+        {
+            ByteBuffer copy = this.bufferPool.acquire(frame.remaining());
+            copy.put(frame).flip();
+
+            process(() ->
+            {
+                try
+                {
+                    processFrame(copy);
+                }
+                finally
+                {
+                    this.bufferPool.release(copy);
+                }
+            });
+        }
+    }
+
+    protected void processFrame(ByteBuffer frame)
+    {
+        ByteBuffer[] ret = null;
+
+        if (this.bufferProcessor != null)
+        {
+            ret = this.bufferProcessor.process(frame);
+        }
+
+        if (ret != null)
+        {
+            send(ret);
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of all given buffers with a single gathering write, for example a header and a body.
+     * Direct buffers are written without an intermediate copy.
+     *
+     * @param buffers
+     */
+    public synchronized void send(ByteBuffer... buffers)
+    {
+        try
+        {
+            long remaining = 0;
+
+            for (ByteBuffer buffer : buffers)
+            {
+                remaining += buffer.remaining();
+            }
+
+            this.metrics.addBytesOut(remaining);
+            this.metrics.messageSent(MessageType.RAW);
+
+            while (remaining > 0)
+            {
+                remaining -= this.channel.write(buffers);
+            }
+        }
+        catch (IOException e)
+        {
+            dispatchExceptionEvent(new UnspecifiedClientException(this, e), false);
+        }
+    }
+
+    /**
+     * Sets the decoder that splits received bytes into frames. Without a decoder all currently available bytes are
+     * handed to the processor as one frame.
+     *
+     * @param frameDecoder
+     */
+    public void setFrameDecoder(BufferFrameDecoder frameDecoder)
+    {
+        this.frameDecoder = frameDecoder;
+    }
+
+    /**
+     * Sets a processor which will receive every incoming frame.
+     *
+     * @param bufferProcessor
+     */
+    public void setBufferProcessor(BufferProcessor bufferProcessor)
+    {
+        this.bufferProcessor = bufferProcessor;
+    }
+
+    @Override
+    public boolean isConnected()
+    {
+        return this.channel != null && this.channel.isConnected() && this.channel.isOpen();
+    }
+
+    @Override
+    protected void closeResources()
+    {
+        Exceptions.ignoreThrow(() -> Null.checkClose(this.channel));
+        super.closeResources();
+    }
+}
@@ -2,20 +2,32 @@ package bt.remote.socket;
 
 import bt.console.output.styled.Style;
 import bt.log.Log;
+import bt.remote.socket.buffer.BufferPool;
 import bt.remote.socket.evnt.client.*;
 import bt.remote.socket.exc.WrappedException;
+import bt.remote.socket.metrics.ConnectionMetrics;
+import bt.remote.socket.metrics.MetricsSnapshot;
+import bt.remote.socket.thread.ConnectionExecutor;
+import bt.remote.socket.thread.InboundLimit;
+import bt.remote.socket.thread.OverflowPolicy;
+import bt.remote.socket.thread.PlatformThreadExecutor;
+import bt.remote.socket.thread.ProcessingPool;
+import bt.remote.socket.thread.SerialExecutor;
+import bt.remote.socket.timer.Timeout;
+import bt.remote.socket.timer.TimerWheel;
 import bt.runtime.InstanceKiller;
 import bt.runtime.evnt.Dispatcher;
-import bt.scheduler.Threads;
 import bt.types.Killable;
 import bt.utils.Array;
 import bt.utils.Exceptions;
 import bt.utils.Null;
 
 import java.io.*;
-import java.net.ConnectException;
 import java.net.Socket;
 import java.net.SocketException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A class wrapping a {@link Socket}. This class should be used on client side in a client-server connection.
@@ -42,12 +54,33 @@ public abstract class Client implements Killable, Runnable
     /** Indicates that this client should attempt reconnecting if the connection is lost. */
     protected boolean autoReconnect;
 
-    /** The maximum number of reconnect attempts before giving up. -1 for infinite attempts. */
-    protected int maxReconnectAttempts = -1;
+    /** Decides how often and after which delays reconnecting is attempted. */
+    protected ReconnectPolicy reconnectPolicy = ReconnectPolicy.DEFAULT;
+
+    /** Indicates that reconnect attempts are currently scheduled or running. */
+    protected AtomicBoolean reconnecting = new AtomicBoolean();
+
+    /** The next scheduled reconnect attempt. */
+    protected volatile Timeout reconnectTimer;
 
     /** Inidcates whether data should be processed sequencially instead of in parallel. */
     protected boolean singleThreadProcessing = false;
 
+    /** The executor used to run the threads of this client and to process incoming data. */
+    protected ConnectionExecutor executor;
+
+    /** Bounds the number of incoming messages waiting for processing. Null if unbounded. */
+    protected InboundLimit inboundLimit;
+
+    /** Processes incoming messages in order if ordered processing is enabled, otherwise null. */
+    protected SerialExecutor serialExecutor;
+
+    /** The pool that the buffers of this client's connections are taken from. */
+    protected BufferPool bufferPool;
+
+    /** Counts the traffic of this client across reconnects. */
+    protected ConnectionMetrics metrics;
+
     /**
      * Creates a new instance, initializes the {@link #eventDispatcher} and adds the instance to the
      * {@link InstanceKiller}.
@@ -55,6 +88,9 @@ public abstract class Client implements Killable, Runnable
     protected Client()
     {
         this.eventDispatcher = new Dispatcher();
+        this.executor = new PlatformThreadExecutor();
+        this.bufferPool = BufferPool.heap();
+        this.metrics = new ConnectionMetrics();
         InstanceKiller.killOnShutdown(this);
     }
 
@@ -83,15 +119,33 @@ public abstract class Client implements Killable, Runnable
     }
 
     /**
-     * Instructs the client to automatically reconnect to the server if the connection breaks.
+     * Instructs the client to automatically reconnect to the server if the connection breaks. The delays between
+     * attempts are taken from the current {@link ReconnectPolicy}, which is {@link ReconnectPolicy#DEFAULT} unless
+     * configured otherwise.
      *
      * @param maxReconnectAttempts
      *            The maximum attempts before giving up reconnecting. Set to -1 for infinite attempts.
      */
     public void autoReconnect(int maxReconnectAttempts)
+    {
+        autoReconnect(this.reconnectPolicy.withMaxAttempts(maxReconnectAttempts));
+    }
+
+    /**
+     * Instructs the client to automatically reconnect to the server if the connection breaks.
+     *
+     * @param reconnectPolicy
+     *            Decides how often and after which delays reconnecting is attempted.
+     */
+    public void autoReconnect(ReconnectPolicy reconnectPolicy)
     {
         this.autoReconnect = true;
-        this.maxReconnectAttempts = maxReconnectAttempts;
+        this.reconnectPolicy = reconnectPolicy;
+    }
+
+    public ReconnectPolicy getReconnectPolicy()
+    {
+        return this.reconnectPolicy;
     }
 
     /**
@@ -219,6 +273,8 @@ public abstract class Client implements Killable, Runnable
     @Override
     public void kill()
     {
+        this.reconnecting.set(false);
+        Null.checkRun(this.reconnectTimer, () -> this.reconnectTimer.cancel());
         closeResources();
 
         if (!InstanceKiller.isActive())
@@ -235,51 +291,125 @@ public abstract class Client implements Killable, Runnable
         Exceptions.ignoreThrow(() -> Null.checkClose(this.socket));
     }
 
-    protected synchronized void reconnect()
+    /**
+     * Closes the current connection and starts reconnecting according to the {@link #reconnectPolicy}. Attempts are
+     * scheduled on the shared {@link TimerWheel} and run by the {@link #executor}, so this method returns right away.
+     * Calls while reconnecting is already in progress are ignored.
+     */
+    protected void reconnect()
     {
-        boolean reconnected = false;
-        int attempts = 0;
+        if (!this.reconnecting.compareAndSet(false, true))
+        {
+            return;
+        }
+
         this.eventDispatcher.dispatch(new ClientReconnectStarted(this));
         closeResources();
-        Exception failureReason = null;
+        scheduleReconnectAttempt(1, System.nanoTime());
+    }
 
-        while (attempts < this.maxReconnectAttempts || this.maxReconnectAttempts == -1)
+    /**
+     * Schedules the given reconnect attempt after the delay that the {@link #reconnectPolicy} decides on.
+     *
+     * @param attempt
+     *            The number of the attempt, starting at 1.
+     * @param startTime
+     *            The {@link System#nanoTime()} at which reconnecting started.
+     */
+    protected void scheduleReconnectAttempt(int attempt, long startTime)
+    {
+        long delay = this.reconnectPolicy.getDelay(attempt);
+
+        // connecting blocks, so the attempt is handed off instead of running on the timer thread
+        this.reconnectTimer = TimerWheel.get().schedule(() -> this.executor.executeCached(() -> attemptReconnect(attempt, startTime)),
+                                                        delay,
+                                                        TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Makes a single reconnect attempt and schedules the next one if it fails and the {@link #reconnectPolicy} allows
+     * it.
+     *
+     * @param attempt
+     * @param startTime
+     */
+    protected void attemptReconnect(int attempt, long startTime)
+    {
+        if (!this.reconnecting.get())
         {
-            attempts ++ ;
-            this.eventDispatcher.dispatch(new ClientReconnectAttempt(this, attempts, this.maxReconnectAttempts));
+            return;
+        }
 
-            try
-            {
-                this.running = true;
-                setupConnection();
-                startThreads();
-                reconnected = true;
-                break;
-            }
-            catch (ConnectException e)
+        int maxAttempts = this.reconnectPolicy.getMaxAttempts();
+        this.eventDispatcher.dispatch(new ClientReconnectAttempt(this, attempt, maxAttempts));
+
+        try
+        {
+            this.running = true;
+            setupConnection();
+            startThreads();
+        }
+        catch (IOException e)
+        {
+            // refused connections, timeouts, resets and failed handshakes all leave the decision to the policy
+            this.running = false;
+            Exceptions.ignoreThrow(() -> Null.checkClose(this.socket));
+            dispatchExceptionEvent(new ClientReconnectAttemptFailed(this, e, attempt, maxAttempts), false);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+            if (this.reconnectPolicy.canAttempt(attempt + 1, elapsed))
             {
-                dispatchExceptionEvent(new ClientReconnectAttemptFailed(this, e, attempts, this.maxReconnectAttempts), false);
-                failureReason = e;
+                scheduleReconnectAttempt(attempt + 1, startTime);
             }
-            catch (IOException e1)
+            else
             {
-                dispatchExceptionEvent(new ClientReconnectAttemptFailed(this, e1, attempts, this.maxReconnectAttempts), false);
-                failureReason = e1;
-                break;
+                reconnectFailed(e);
             }
+
+            return;
         }
 
-        if (reconnected)
+        if (!this.reconnecting.compareAndSet(true, false))
         {
-            this.eventDispatcher.dispatch(new ClientReconnectSuccessfull(this));
+            // killed while connecting
+            closeResources();
+            return;
         }
-        else
+
+        this.metrics.reconnected();
+        reconnected();
+        this.eventDispatcher.dispatch(new ClientReconnectSuccessfull(this));
+    }
+
+    /**
+     * Called after a successful reconnect, right before {@link ClientReconnectSuccessfull} is dispatched.
+     */
+    protected void reconnected()
+    {
+    }
+
+    /**
+     * Gives up reconnecting and kills this client.
+     *
+     * @param failureReason
+     */
+    protected void reconnectFailed(Exception failureReason)
+    {
+        if (this.reconnecting.compareAndSet(true, false))
         {
             dispatchExceptionEvent(new ClientReconnectFailed(this, failureReason), true);
             kill();
         }
     }
 
+    /**
+     * @return true if reconnect attempts are currently scheduled or running.
+     */
+    public boolean isReconnecting()
+    {
+        return this.reconnecting.get();
+    }
+
     public void start()
     {
         this.running = true;
@@ -300,7 +430,7 @@ public abstract class Client implements Killable, Runnable
 
     protected void startThreads()
     {
-        Threads.get().execute(this, "Client " + this.host + ":" + this.port);
+        this.executor.execute(this, "Client " + this.host + ":" + this.port);
     }
 
     public boolean isConnected()
@@ -322,8 +452,9 @@ public abstract class Client implements Killable, Runnable
             {
                 readData();
             }
-            catch (EOFException eof)
+            catch (EOFException | StreamCorruptedException eof)
             {
+                // a corrupted stream can not be read in sync again, so it is treated like a lost connection
                 if (this.running)
                 {
                     dispatchExceptionEvent(new ClientConnectionLost(this, eof), false);
@@ -363,6 +494,7 @@ public abstract class Client implements Killable, Runnable
 
     protected void dispatchExceptionEvent(ClientExceptionEvent event, boolean requiresHandling)
     {
+        this.metrics.errorOccurred();
         int dispatched = this.eventDispatcher.dispatch(event);
 
         if (requiresHandling && dispatched == 0)
@@ -397,5 +529,186 @@ public abstract class Client implements Killable, Runnable
         this.singleThreadProcessing = singleThreadProcessing;
     }
 
+    public ConnectionExecutor getExecutor()
+    {
+        return this.executor;
+    }
+
+    /**
+     * Sets the executor used to run the threads of this client and to process incoming data. Keep alives and other
+     * timeouts are scheduled on the shared {@link TimerWheel}, which runs on its own platform thread regardless of this
+     * executor.
+     *
+     * <p>
+     * This has to be called before the client is started.
+     * </p>
+     *
+     * @param executor
+     * @see bt.remote.socket.thread.VirtualThreadExecutor
+     */
+    public void setExecutor(ConnectionExecutor executor)
+    {
+        this.executor = executor;
+    }
+
+    public ConnectionMetrics getMetrics()
+    {
+        return this.metrics;
+    }
+
+    /**
+     * Sets the metrics that the traffic of this client is recorded into. This has to be called before the client is
+     * started.
+     *
+     * @param metrics
+     */
+    public void setMetrics(ConnectionMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Takes a snapshot of the {@link #getMetrics() metrics} of this client together with its current queue depths.
+     *
+     * @return
+     */
+    public MetricsSnapshot getMetricsSnapshot()
+    {
+        return this.metrics.snapshot(getInboundQueueDepth(), 0, 0);
+    }
+
+    public BufferPool getBufferPool()
+    {
+        return this.bufferPool;
+    }
+
+    /**
+     * Sets the pool that the buffers of this client's connections are taken from. This has to be called before the
+     * client is started.
+     *
+     * <p>
+     * Stream based clients read and write through the backing arrays of their buffers, so they only accept pools of heap
+     * buffers. Direct pools are only accepted by clients that {@link #supportsDirectBuffers() support} them.
+     * </p>
+     *
+     * @param bufferPool
+     * @throws IllegalArgumentException
+     *             If the pool hands out direct buffers and this client does not support them.
+     */
+    public void setBufferPool(BufferPool bufferPool)
+    {
+        if (bufferPool.isDirect() && !supportsDirectBuffers())
+        {
+            throw new IllegalArgumentException(getClass().getSimpleName() + " requires a pool of heap buffers");
+        }
+
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * @return true if this client only does channel I/O with its buffers and can therefore use a pool of direct
+     *         buffers.
+     */
+    protected boolean supportsDirectBuffers()
+    {
+        return false;
+    }
+
+    /**
+     * Enables or disables ordered processing on the shared {@link ProcessingPool}.
+     *
+     * @param orderedProcessing
+     * @see #setOrderedProcessing(Executor)
+     */
+    public void setOrderedProcessing(boolean orderedProcessing)
+    {
+        setOrderedProcessing(orderedProcessing ? ProcessingPool.get() : null);
+    }
+
+    /**
+     * Processes incoming messages of this client one after another in the order they were received, but on the given
+     * pool instead of the reading thread. Messages of different clients that share the pool are processed in
+     * parallel, so this sits between {@link #setSingleThreadProcessing(boolean) single thread processing} and the
+     * default unordered processing.
+     *
+     * @param pool
+     *            The pool to process messages on or null to disable ordered processing.
+     */
+    public void setOrderedProcessing(Executor pool)
+    {
+        this.serialExecutor = pool != null ? new SerialExecutor(pool) : null;
+    }
+
+    public boolean isOrderedProcessing()
+    {
+        return this.serialExecutor != null;
+    }
+
+    /**
+     * Bounds the number of incoming messages that have been read but not yet processed. Without a bound a fast peer
+     * can create processing tasks faster than they complete.
+     *
+     * <p>
+     * This has no effect if {@link #setSingleThreadProcessing(boolean) single thread processing} is enabled, since
+     * messages are processed by the reading thread itself then.
+     * </p>
+     *
+     * @param capacity
+     *            The maximum number of messages waiting for or in processing. 0 or less removes the bound.
+     * @param policy
+     *            Decides what happens with messages that exceed the capacity.
+     */
+    public void setInboundQueue(int capacity, OverflowPolicy policy)
+    {
+        this.inboundLimit = capacity > 0 ? new InboundLimit(capacity, policy) : null;
+    }
+
+    public InboundLimit getInboundLimit()
+    {
+        return this.inboundLimit;
+    }
+
+    /**
+     * @return The number of incoming messages currently waiting for or in processing. Always 0 if the inbound queue
+     *         is unbounded.
+     */
+    public int getInboundQueueDepth()
+    {
+        return this.inboundLimit == null ? 0 : this.inboundLimit.getDepth();
+    }
+
+    /**
+     * Hands the given processing task of an incoming message to the {@link #serialExecutor} if ordered processing is
+     * enabled or to the {@link #executor} otherwise, respecting the {@link #inboundLimit}.
+     *
+     * @param task
+     * @throws IOException
+     *             If the inbound queue is full and its policy is {@link OverflowPolicy#FAIL}.
+     */
+    protected void process(Runnable task) throws IOException
+    {
+        InboundLimit limit = this.inboundLimit;
+        Executor target = this.serialExecutor != null ? this.serialExecutor : this.executor::executeCached;
+
+        if (limit == null)
+        {
+            target.execute(task);
+        }
+        else if (limit.admit())
+        {
+            target.execute(() ->
+            {
+                try
+                {
+                    task.run();
+                }
+                finally
+                {
+                    limit.release();
+                }
+            });
+        }
+    }
+
     protected abstract void readData() throws IOException;
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package bt.remote.socket;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The connected clients of a {@link Server}, indexed by their id and by their remote address.
+ *
+ * <p>
+ * Adding and removing a client takes constant time regardless of the number of connections, so that connection storms
+ * do not slow down accepting. Iteration is weakly consistent: it never fails due to concurrent changes and sees every
+ * client that stays connected throughout, but may or may not see clients that connect or disconnect meanwhile.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class ClientRegistry implements Iterable<ServerClient>
+{
+    /** Source of the ids that are assigned to added clients. */
+    private final AtomicLong ids;
+
+    /** The registered clients by their id. */
+    protected final ConcurrentHashMap<Long, ServerClient> byId;
+
+    /** The registered clients by their remote address. */
+    protected final ConcurrentHashMap<SocketAddress, ServerClient> byAddress;
+
+    /** A read only view of the registered clients. */
+    private final Collection<ServerClient> view;
+
+    public ClientRegistry()
+    {
+        this.ids = new AtomicLong();
+        this.byId = new ConcurrentHashMap<>();
+        this.byAddress = new ConcurrentHashMap<>();
+        this.view = Collections.unmodifiableCollection(this.byId.values());
+    }
+
+    /**
+     * Adds the given client and assigns it a new id.
+     *
+     * @param client
+     */
+    public void add(ServerClient client)
+    {
+        client.setId(this.ids.incrementAndGet());
+        this.byId.put(client.getId(), client);
+        SocketAddress address = client.getRemoteAddress();
+
+        if (address != null)
+        {
+            this.byAddress.put(address, client);
+        }
+    }
+
+    /**
+     * Removes the given client.
+     *
+     * @param client
+     * @return true if the client was registered.
+     */
+    public boolean remove(ServerClient client)
+    {
+        if (!this.byId.remove(client.getId(), client))
+        {
+            return false;
+        }
+
+        SocketAddress address = client.getRemoteAddress();
+
+        if (address != null)
+        {
+            this.byAddress.remove(address, client);
+        }
+
+        return true;
+    }
+
+    /**
+     * @param id
+     * @return The client with the given id or null if there is none.
+     */
+    public ServerClient get(long id)
+    {
+        return this.byId.get(id);
+    }
+
+    /**
+     * @param address
+     * @return The client connected from the given remote address or null if there is none.
+     */
+    public ServerClient get(SocketAddress address)
+    {
+        return this.byAddress.get(address);
+    }
+
+    public boolean contains(ServerClient client)
+    {
+        return this.byId.get(client.getId()) == client;
+    }
+
+    public int size()
+    {
+        return this.byId.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return this.byId.isEmpty();
+    }
+
+    /**
+     * @return A read only view of the registered clients. It reflects later changes and is iterated weakly consistent
+     *         like this registry, without copying anything.
+     */
+    public Collection<ServerClient> view()
+    {
+        return this.view;
+    }
+
+    /**
+     * @return A copy of the currently registered clients.
+     */
+    public List<ServerClient> snapshot()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(this.byId.values()));
+    }
+
+    @Override
+    public Iterator<ServerClient> iterator()
+    {
+        return this.view.iterator();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package bt.remote.socket;
+
+/**
+ * The states of the handshake that an {@link ObjectClient} performs on every new connection before any message can be
+ * exchanged.
+ *
+ * <p>
+ * A connection starts in {@link #HANDSHAKING} and ends up in exactly one of the other states. The handshake deadline
+ * and the handshaking thread race for that transition, so a connection that timed out can never be completed late.
+ * </p>
+ *
+ * @author &#8904
+ */
+public enum HandshakeState
+{
+    /** No connection has been set up yet. */
+    NEW,
+
+    /** The streams of the connection are being set up. */
+    HANDSHAKING,
+
+    /** The handshake has completed and messages can be exchanged. */
+    ESTABLISHED,
+
+    /** The peer did not complete the handshake within the handshake timeout and the connection was closed. */
+    TIMED_OUT,
+
+    /** The handshake failed for another reason, for example because the peer closed the connection. */
+    FAILED
+}
\ No newline at end of file
@@ -10,9 +10,10 @@ import bt.console.output.styled.Style;
 import bt.log.Log;
 import bt.remote.socket.evnt.mcast.*;
 import bt.remote.socket.exc.WrappedException;
+import bt.remote.socket.thread.ConnectionExecutor;
+import bt.remote.socket.thread.PlatformThreadExecutor;
 import bt.runtime.InstanceKiller;
 import bt.runtime.evnt.Dispatcher;
-import bt.scheduler.Threads;
 import bt.types.Killable;
 import bt.utils.Array;
 import bt.utils.Exceptions;
@@ -49,6 +50,9 @@ public class MulticastClient implements Killable
     /** A dispatcher to distribute client related events. */
     protected Dispatcher eventDispatcher;
 
+    /** The executor used to run the listening thread. */
+    protected ConnectionExecutor executor;
+
     /**
      * Creates a new instance and attempts to connect to the given address and port.
      *
@@ -59,6 +63,7 @@ public class MulticastClient implements Killable
     public MulticastClient(int port, String multicastGroupAddress) throws IOException
     {
         this.eventDispatcher = new Dispatcher();
+        this.executor = new PlatformThreadExecutor();
         InstanceKiller.killOnShutdown(this);
         this.port = port;
         this.mcastSocket = new MulticastSocket(port);
@@ -73,7 +78,7 @@ public class MulticastClient implements Killable
     public void start()
     {
         this.running = true;
-        Threads.get().execute(() -> listenForMulticast(), "MulticastClient " + this.multicastGroup.getHostAddress() + ":" + this.mcastSocket.getLocalPort());
+        this.executor.execute(() -> listenForMulticast(), "MulticastClient " + this.multicastGroup.getHostAddress() + ":" + this.mcastSocket.getLocalPort());
         this.eventDispatcher.dispatch(new MulticastClientStarted(this));
     }
 
@@ -179,6 +184,21 @@ public class MulticastClient implements Killable
         return eventDispatcher;
     }
 
+    public ConnectionExecutor getExecutor()
+    {
+        return this.executor;
+    }
+
+    /**
+     * Sets the executor used to run the listening thread. This has to be called before the client is started.
+     *
+     * @param executor
+     */
+    public void setExecutor(ConnectionExecutor executor)
+    {
+        this.executor = executor;
+    }
+
     private String formatHostPortString(MulticastClientEvent e)
     {
         return Style.apply(e.getClient().getMulticastGroup().getHostAddress(), "-red", "yellow")
@@ -1,50 +1,192 @@
 package bt.remote.socket;
 
 import bt.async.Async;
-import bt.async.AsyncException;
-import bt.async.AsyncManager;
 import bt.async.Data;
+import bt.remote.socket.buffer.PooledInputStream;
+import bt.remote.socket.buffer.PooledOutputStream;
 import bt.remote.socket.data.*;
 import bt.remote.socket.evnt.client.ClientConnectionLost;
+import bt.remote.socket.evnt.client.ClientExceptionEvent;
 import bt.remote.socket.evnt.client.ClientKeepAliveTimeout;
 import bt.remote.socket.evnt.client.ClientPingUpdate;
 import bt.remote.socket.evnt.client.UnspecifiedClientException;
-import bt.scheduler.Threads;
+import bt.remote.socket.exc.InvalidDataIdException;
+import bt.remote.socket.jmx.ClientStats;
+import bt.remote.socket.jmx.MBeans;
+import bt.remote.socket.metrics.MessageType;
+import bt.remote.socket.metrics.MetricsSnapshot;
+import bt.remote.socket.metrics.RttEstimator;
+import bt.remote.socket.timer.Timeout;
+import bt.remote.socket.timer.TimerWheel;
 import bt.utils.Exceptions;
 import bt.utils.Null;
-import bt.utils.StringID;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OptionalDataException;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * Extension of Client for communication through object streams
  */
 public class ObjectClient extends Client
 {
+    /** The capacity of the {@link #outboundQueue} unless configured otherwise. */
+    public static final int DEFAULT_OUTBOUND_QUEUE_CAPACITY = 8192;
+
+    /** Source of the numeric ids that are assigned to outgoing data. */
+    private static final AtomicLong DATA_IDS = new AtomicLong();
+
     /** The stream for incoming objects. */
     protected ObjectInputStream in;
 
     /** The stream for outgoing objects. */
     protected ObjectOutputStream out;
 
+    /** The buffered stream that {@link #out} writes to. Used to write objects that have already been serialized. */
+    protected OutputStream streamOut;
+
+    /** Sits between {@link #out} and {@link #streamOut}, so that {@link #out} can be drained without a flush. */
+    protected FlushSuppressingOutputStream outTarget;
+
+    /** The stream for incoming frames. Only used if a {@link #frameCodec} is set. */
+    protected DataInputStream frameIn;
+
+    /** The stream for outgoing frames. Only used if a {@link #frameCodec} is set. */
+    protected DataOutputStream frameOut;
+
+    /**
+     * The codec used to exchange objects as length prefixed frames. If this is null objects are exchanged through a
+     * continuous object stream instead.
+     */
+    protected FrameCodec frameCodec;
+
+    /** Decides when {@link #out} is reset to release the objects retained by the object streams. */
+    protected ResetPolicy resetPolicy = ResetPolicy.DEFAULT;
+
+    /** The number of times that {@link #out} has been reset. */
+    protected volatile long streamResets;
+
+    /** The number of messages written since the last reset of {@link #out}. */
+    private int messagesSinceReset;
+
+    /** The number of bytes sent by the {@link #metrics} at the last reset of {@link #out}. */
+    private long bytesAtLastReset;
+
     protected boolean sendKeepAlives = true;
 
     /** The current latency. */
     protected long currentPing;
 
+    /** The {@link System#nanoTime()} at which the last message was received. */
+    protected volatile long lastInbound;
+
+    /** The next scheduled keep alive check. */
+    protected Timeout keepAliveTimer;
+
+    /** The {@link System#nanoTime()} at which the unanswered ping was sent, 0 if no ping is outstanding. */
+    protected AtomicLong pingSent = new AtomicLong();
+
+    /**
+     * Indicates whether the peer is known to understand {@link ControlFrame control frames}. Always true with a
+     * {@link #frameCodec}, negotiated through the first keep alives on object streams.
+     */
+    protected volatile boolean controlFrames;
+
+    /** The id of the unanswered legacy {@link KeepAlive}, null if none is outstanding. */
+    protected volatile String keepAliveId;
+
+    /** Indicates whether this client is exposed as MBean while it is running. */
+    protected boolean jmxEnabled = true;
+
+    /** The name of the registered MBean of this client, null if none is registered. */
+    protected ObjectName mbeanName;
+
+    /**
+     * The time in milliseconds that the peer has to complete the handshake of a new connection before it is closed. 0
+     * to wait indefinitely.
+     */
+    protected long handshakeTimeout = 10000;
+
+    /** The state of the handshake of the current connection. */
+    protected AtomicReference<HandshakeState> handshakeState = new AtomicReference<>(HandshakeState.NEW);
+
     /** A processor for incoming data from requests. */
     protected DataProcessor dataProcessor;
 
     /**
-     * The time between keepalives in milliseconds. This is also the time that is waited for a keepalive response before
-     * deeming the connection as broken.
+     * The time between keepalives in milliseconds. This is also the longest time that is waited for a keepalive
+     * response before deeming the connection as broken.
      */
     protected long keepAliveTimeout = 10000;
 
+    /**
+     * Indicates whether the time waited for a keepalive response is derived from the measured round trip times instead
+     * of always waiting for the full {@link #keepAliveTimeout}.
+     */
+    protected boolean adaptiveKeepAliveTimeout;
+
+    /** The shortest time in milliseconds that is waited for a keepalive response if the timeout is adaptive. */
+    protected long minKeepAliveTimeout = 1000;
+
+    /** The round trip times measured by keepalives. */
+    protected RttEstimator rtt = new RttEstimator();
+
+    /** Requests of this client that are waiting for a response, keyed by their correlation id. */
+    protected PendingRequestTable pendingRequests = new PendingRequestTable();
+
+    /** The time in milliseconds after which requests without response are removed from {@link #pendingRequests}. */
+    protected long requestTimeout = 30000;
+
+    /** Objects waiting to be written by the writer thread. Null if write batching is disabled. */
+    protected BlockingQueue<Object> outboundQueue;
+
+    /** The socket that the writer thread is currently writing to, null if no writer thread is running. */
+    protected AtomicReference<Socket> writerSocket = new AtomicReference<>();
+
+    /** The maximum number of objects written with a single flush when write batching is enabled. */
+    protected int maxBatchSize;
+
+    /** The maximum time in microseconds that the writer thread waits for more objects to complete a batch. */
+    protected long maxLingerMicros;
+
+    /** Indicates whether the streams are flushed after every sent object if write batching is disabled. */
+    protected boolean autoFlush = true;
+
+    /** Holds outgoing messages while reconnecting. Null if messages should not be held. */
+    protected ReconnectBuffer reconnectBuffer;
+
+    /** The listeners of every topic that this client is subscribed to. */
+    protected Map<String, List<Consumer>> topicListeners = new ConcurrentHashMap<>();
+
     /**
      * Creates a new instance with the given hostname and port of the desired server.
      *
@@ -77,88 +219,426 @@ public class ObjectClient extends Client
         this.dataProcessor = dataProcessor;
     }
 
+    /**
+     * Sets the codec used to exchange objects as length prefixed frames instead of through a continuous object stream.
+     * Both sides of the connection need to use the same codec. Framing is required to communicate with a
+     * {@link bt.remote.socket.nio.SelectorServer SelectorServer}.
+     *
+     * <p>
+     * A {@link BinaryFrameCodec} keeps small messages at a few bytes and encodes common payloads without reflection.
+     * </p>
+     *
+     * <p>
+     * This has to be called before the connection is established.
+     * </p>
+     *
+     * @param frameCodec
+     *            The codec to use or null to use object streams.
+     */
+    public void setFrameCodec(FrameCodec frameCodec)
+    {
+        this.frameCodec = frameCodec;
+    }
+
+    public FrameCodec getFrameCodec()
+    {
+        return this.frameCodec;
+    }
+
     @Override
     protected void setupConnection() throws IOException
     {
         super.setupConnection();
-        this.out = new ObjectOutputStream(this.socket.getOutputStream());
-        this.out.flush();
-        this.in = new ObjectInputStream(this.socket.getInputStream());
+        setupStreams();
     }
 
-    protected void sendKeepAlive()
+    /**
+     * Creates the streams used to exchange objects on top of the already connected {@link #socket}.
+     *
+     * @throws IOException
+     */
+    protected void setupStreams() throws IOException
     {
-        boolean error = false;
-        boolean keepAliveError = false;
-        Exception failureReason = null;
+        var socketOut = new CountingOutputStream(this.socket.getOutputStream(), this.metrics::addBytesOut);
+        var socketIn = new CountingInputStream(this.socket.getInputStream(), this.metrics::addBytesIn);
 
-        while (this.running && this.sendKeepAlives && !this.socket.isClosed())
+        if (this.frameCodec != null)
         {
-            Exceptions.ignoreThrow(() -> Thread.sleep(this.keepAliveTimeout));
+            this.frameOut = new DataOutputStream(new PooledOutputStream(socketOut, this.bufferPool));
+            this.frameIn = new DataInputStream(new PooledInputStream(socketIn, this.bufferPool));
 
-            try
+            // frames need no header, so the connection is usable right away
+            this.handshakeState.set(HandshakeState.ESTABLISHED);
+        }
+        else
+        {
+            this.streamOut = new PooledOutputStream(socketOut, this.bufferPool);
+            performHandshake(socketIn);
+        }
+
+        this.messagesSinceReset = 0;
+        this.bytesAtLastReset = this.metrics.getBytesOut();
+        // a reconnect might have reached a different peer, so object streams negotiate control frames again
+        this.controlFrames = this.frameCodec != null;
+        this.keepAliveId = null;
+    }
+
+    /**
+     * Exchanges the object stream headers with the peer.
+     *
+     * <p>
+     * Creating the {@link ObjectInputStream} blocks until the header of the peer has arrived, so a peer that connects
+     * but never sends anything would otherwise hold the calling thread forever. The handshake is therefore bounded by
+     * the {@link #handshakeTimeout} in two ways: a socket read timeout for a peer that stays silent, and a deadline on
+     * the shared {@link TimerWheel} that closes the socket for a peer that sends its header too slowly. Whichever of
+     * the handshaking thread and the deadline moves the {@link #handshakeState} away from
+     * {@link HandshakeState#HANDSHAKING} first decides the outcome.
+     * </p>
+     *
+     * @param socketIn
+     *            The stream that the {@link #in object input stream} is created on.
+     * @throws IOException
+     *             A {@link SocketTimeoutException} if the handshake did not complete in time.
+     */
+    protected void performHandshake(InputStream socketIn) throws IOException
+    {
+        Socket socket = this.socket;
+        long start = System.nanoTime();
+        this.handshakeState.set(HandshakeState.HANDSHAKING);
+        Timeout deadline = null;
+
+        if (this.handshakeTimeout > 0)
+        {
+            deadline = TimerWheel.get().schedule(() -> handshakeTimedOut(socket), this.handshakeTimeout, TimeUnit.MILLISECONDS);
+        }
+
+        try
+        {
+            int soTimeout = socket.getSoTimeout();
+            socket.setSoTimeout((int)Math.min(Integer.MAX_VALUE, this.handshakeTimeout));
+            this.outTarget = new FlushSuppressingOutputStream(this.streamOut);
+            this.out = new ObjectOutputStream(this.outTarget);
+            this.out.flush();
+            this.in = new ObjectInputStream(socketIn);
+            socket.setSoTimeout(soTimeout);
+        }
+        catch (SocketTimeoutException e)
+        {
+            handshakeTimedOut(socket);
+            throw e;
+        }
+        catch (IOException e)
+        {
+            if (this.handshakeState.compareAndSet(HandshakeState.HANDSHAKING, HandshakeState.FAILED))
             {
-                Data data = new Data(String.class, "Ping", StringID.uniqueID());
-                Async async = new Async(data.getID());
-                long sent = System.currentTimeMillis();
-                sendObject(new KeepAlive(data));
-                async.get(this.keepAliveTimeout);
-                this.currentPing = System.currentTimeMillis() - sent;
-                this.eventDispatcher.dispatch(new ClientPingUpdate(this, this.currentPing));
+                throw e;
             }
-            catch (AsyncException e)
+
+            // the deadline closed the socket while the handshake was still waiting
+            throw new SocketTimeoutException("Handshake did not complete within " + this.handshakeTimeout + " ms");
+        }
+        finally
+        {
+            if (deadline != null)
             {
-                if (this.running)
-                {
-                    error = true;
-                    keepAliveError = true;
-                    this.running = false;
-                    failureReason = e;
-                    break;
-                }
+                deadline.cancel();
             }
-            catch (SocketException sok)
+        }
+
+        if (!this.handshakeState.compareAndSet(HandshakeState.HANDSHAKING, HandshakeState.ESTABLISHED))
+        {
+            throw new SocketTimeoutException("Handshake did not complete within " + this.handshakeTimeout + " ms");
+        }
+
+        this.metrics.recordHandshakeLatency(System.nanoTime() - start);
+    }
+
+    /**
+     * Called when the handshake of the given connection exceeded the {@link #handshakeTimeout}. Closes the socket
+     * unless the handshake has completed or failed in the meantime.
+     *
+     * @param socket
+     */
+    protected void handshakeTimedOut(Socket socket)
+    {
+        if (this.handshakeState.compareAndSet(HandshakeState.HANDSHAKING, HandshakeState.TIMED_OUT))
+        {
+            this.metrics.handshakeTimedOut();
+            Exceptions.ignoreThrow(() -> socket.close());
+        }
+    }
+
+    /**
+     * Schedules the first keep alive check of the current connection if keep alives are enabled.
+     */
+    protected void startKeepAlives()
+    {
+        if (this.sendKeepAlives)
+        {
+            this.lastInbound = System.nanoTime();
+            scheduleKeepAlive(this.socket, TimeUnit.MILLISECONDS.toNanos(this.keepAliveTimeout));
+        }
+    }
+
+    /**
+     * Schedules the next keep alive check of the given connection on the shared {@link TimerWheel}.
+     *
+     * @param socket
+     *            The socket of the connection that the check is meant for. Checks of replaced connections stop on
+     *            their own.
+     * @param delayNanos
+     */
+    protected void scheduleKeepAlive(Socket socket, long delayNanos)
+    {
+        this.keepAliveTimer = TimerWheel.get().schedule(() -> checkKeepAlive(socket), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Called by the timer wheel once per keep alive interval. A ping is only sent if nothing has been received for a
+     * full interval, since any incoming message already proves that the connection is alive.
+     *
+     * @param socket
+     */
+    protected void checkKeepAlive(Socket socket)
+    {
+        if (!this.running || !this.sendKeepAlives || this.socket != socket || socket.isClosed())
+        {
+            return;
+        }
+
+        long interval = TimeUnit.MILLISECONDS.toNanos(this.keepAliveTimeout);
+        long idle = System.nanoTime() - this.lastInbound;
+
+        if (idle < interval)
+        {
+            scheduleKeepAlive(socket, interval - idle);
+        }
+        else
+        {
+            // sending might block on a full socket buffer, which must not stall the timer wheel
+            this.executor.executeCached(() -> sendKeepAlive(socket));
+        }
+    }
+
+    /**
+     * Sends a single {@link ControlFrame#PING}. The {@link ControlFrame#PONG} updates the ping and schedules the next
+     * check. If neither the pong nor any other message arrives within the {@link #getKeepAliveResponseTimeout()
+     * response timeout} the connection is considered broken.
+     *
+     * <p>
+     * As long as the peer is not known to understand {@link #controlFrames control frames} a legacy {@link KeepAlive}
+     * offering them is sent instead.
+     * </p>
+     *
+     * @param socket
+     */
+    protected void sendKeepAlive(Socket socket)
+    {
+        long timeout = getKeepAliveResponseTimeout();
+        long sent = System.nanoTime();
+        this.pingSent.set(sent);
+        this.keepAliveTimer = TimerWheel.get().schedule(() -> checkPingAnswered(socket, sent, timeout), timeout, TimeUnit.NANOSECONDS);
+
+        try
+        {
+            if (this.controlFrames)
             {
-                if (this.running)
-                {
-                    error = true;
-                    this.running = false;
-                    failureReason = sok;
-                    break;
-                }
+                sendControlFrame(ControlFrame.PING);
             }
-            catch (IOException e)
+            else
             {
-                dispatchExceptionEvent(new UnspecifiedClientException(this, e), false);
+                String id = nextDataId();
+                this.keepAliveId = id;
+                // bypasses write batching just like a control frame
+                writeObject(new KeepAlive(new Data(String.class, ControlFrame.OFFER, id)), true);
             }
         }
+        catch (SocketException e)
+        {
+            this.keepAliveTimer.cancel();
+            connectionFailed(socket, e, false);
+        }
+        catch (IOException e)
+        {
+            this.keepAliveTimer.cancel();
+            this.pingSent.compareAndSet(sent, 0);
+            dispatchExceptionEvent(new UnspecifiedClientException(this, e), false);
+            scheduleKeepAlive(socket, TimeUnit.MILLISECONDS.toNanos(this.keepAliveTimeout));
+        }
+    }
+
+    /**
+     * Called by the timer wheel once the response timeout of the ping sent at the given time has passed.
+     *
+     * @param socket
+     * @param sent
+     * @param timeout
+     *            The response timeout of the ping in nanoseconds.
+     */
+    protected void checkPingAnswered(Socket socket, long sent, long timeout)
+    {
+        if (!this.pingSent.compareAndSet(sent, 0))
+        {
+            // the pong has already arrived
+            return;
+        }
+
+        if (this.lastInbound - sent > 0)
+        {
+            // the pong is late, but other traffic shows that the peer is still alive
+            checkKeepAlive(socket);
+        }
+        else
+        {
+            var e = new TimeoutException("No keep alive response within " + TimeUnit.NANOSECONDS.toMillis(timeout) + " ms");
+            this.executor.executeCached(() -> connectionFailed(socket, e, true));
+        }
+    }
+
+    /**
+     * Gets the time that is waited for the response to a keepalive. If the timeout is adaptive this is the smoothed
+     * round trip time plus four times its variation, bounded by the minimum and the {@link #keepAliveTimeout}.
+     *
+     * @return The timeout in nanoseconds.
+     */
+    protected long getKeepAliveResponseTimeout()
+    {
+        long max = TimeUnit.MILLISECONDS.toNanos(this.keepAliveTimeout);
+
+        if (!this.adaptiveKeepAliveTimeout)
+        {
+            return max;
+        }
+
+        return this.rtt.getTimeout(Math.min(TimeUnit.MILLISECONDS.toNanos(this.minKeepAliveTimeout), max), max);
+    }
+
+    /**
+     * Completes the outstanding ping, records its round trip time and schedules the next keep alive check.
+     *
+     * @param received
+     *            The {@link System#nanoTime()} at which the pong was read.
+     */
+    protected void pingAnswered(long received)
+    {
+        long sent = this.pingSent.get();
+
+        if (sent == 0 || !this.pingSent.compareAndSet(sent, 0))
+        {
+            return;
+        }
 
-        if (error)
+        Null.checkRun(this.keepAliveTimer, () -> this.keepAliveTimer.cancel());
+        long rttNanos = received - sent;
+        this.rtt.record(rttNanos);
+        this.currentPing = TimeUnit.NANOSECONDS.toMillis(rttNanos);
+        this.eventDispatcher.dispatch(new ClientPingUpdate(this, this.currentPing, rttNanos));
+        scheduleKeepAlive(this.socket, TimeUnit.MILLISECONDS.toNanos(this.keepAliveTimeout));
+    }
+
+    /**
+     * Handles a received control frame. Control frames count as inbound traffic just like regular messages.
+     *
+     * @param code
+     *            One of the {@link ControlFrame} codes.
+     * @throws IOException
+     *             If the code is unknown.
+     */
+    protected void handleControlFrame(int code) throws IOException
+    {
+        if (!ControlFrame.isControlFrame(code))
+        {
+            throw new StreamCorruptedException("Invalid control frame " + code);
+        }
+
+        long received = System.nanoTime();
+        this.lastInbound = received;
+        this.controlFrames = true;
+        this.metrics.messageReceived(MessageType.KEEP_ALIVE);
+
+        if (code == ControlFrame.PING)
         {
-            if (this.autoReconnect)
+            // answering on the reading thread could block it on a full socket buffer
+            this.executor.executeCached(() ->
             {
-                if (keepAliveError)
+                try
                 {
-                    dispatchExceptionEvent(new ClientKeepAliveTimeout(this, failureReason, this.keepAliveTimeout), false);
+                    sendControlFrame(ControlFrame.PONG);
                 }
-                else
+                catch (IOException e)
                 {
-                    dispatchExceptionEvent(new ClientConnectionLost(this, failureReason), false);
+                    dispatchExceptionEvent(new UnspecifiedClientException(this, e), false);
                 }
+            });
+        }
+        else
+        {
+            pingAnswered(received);
+        }
+    }
 
-                reconnect();
+    /**
+     * Writes and flushes a single control frame, bypassing {@link #setWriteBatching(int, long) write batching}.
+     *
+     * @param code
+     *            One of the {@link ControlFrame} codes.
+     * @throws IOException
+     */
+    protected void sendControlFrame(int code) throws IOException
+    {
+        synchronized (this)
+        {
+            if (this.frameCodec != null)
+            {
+                this.frameOut.writeInt(code);
+                this.frameOut.flush();
             }
             else
             {
-                if (keepAliveError)
-                {
-                    dispatchExceptionEvent(new ClientKeepAliveTimeout(this, failureReason, this.keepAliveTimeout), true);
-                }
-                else
-                {
-                    dispatchExceptionEvent(new ClientConnectionLost(this, failureReason), true);
-                }
+                // written as primitive block data, which the receiver notices through an OptionalDataException
+                this.out.writeInt(code);
+                this.out.flush();
+            }
+        }
+
+        this.metrics.messageSent(MessageType.KEEP_ALIVE);
+    }
+
+    /**
+     * Handles a broken connection that was detected by a keep alive or by the writer thread, either by reconnecting or
+     * by killing this client.
+     *
+     * @param socket
+     * @param failureReason
+     * @param timedOut
+     *            true if a keep alive was not answered in time, false if writing to the connection failed.
+     */
+    protected void connectionFailed(Socket socket, Exception failureReason, boolean timedOut)
+    {
+        if (!this.running || this.socket != socket)
+        {
+            return;
+        }
+
+        this.running = false;
+        failQueued(failureReason);
+
+        ClientExceptionEvent event = timedOut ? new ClientKeepAliveTimeout(this, failureReason, this.keepAliveTimeout)
+                                              : new ClientConnectionLost(this, failureReason);
 
+        if (this.autoReconnect)
+        {
+            dispatchExceptionEvent(event, false);
+            reconnect();
+        }
+        else
+        {
+            try
+            {
+                dispatchExceptionEvent(event, true);
+            }
+            finally
+            {
                 kill();
             }
         }
@@ -209,65 +689,1023 @@ public class ObjectClient extends Client
 
     protected void handleIncomingResponse(Response response)
     {
-        AsyncManager.get().addData(response.getData());
+        completeRequest(response.getData());
     }
 
+    /**
+     * Completes the request that the given acknowledgement belongs to. The answer to an outstanding legacy
+     * {@link KeepAlive} completes the ping instead and tells whether the peer understands control frames.
+     *
+     * @param ack
+     */
     protected void handleIncomingAcknowledge(Acknowledge ack)
     {
-        AsyncManager.get().addData(ack.getData());
-    }
+        Data data = ack.getData();
+        String keepAliveId = this.keepAliveId;
 
-    protected void handleIncomingKeepAlive(KeepAlive ka)
-    {
-        try
-        {
-            sendObject(new Acknowledge(new Data(String.class, "Pong", ka.getData().getID())));
-        }
-        catch (IOException e)
+        if (keepAliveId != null && keepAliveId.equals(data.getID()))
         {
-            dispatchExceptionEvent(new UnspecifiedClientException(this, e), false);
+            this.keepAliveId = null;
+
+            if (ControlFrame.ACCEPT.equals(data.get()))
+            {
+                this.controlFrames = true;
+            }
+
+            pingAnswered(System.nanoTime());
+            return;
         }
+
+        completeRequest(data);
     }
 
+    /**
+     * Completes the {@link PendingRequest} that the given response data belongs to. Data that does not belong to a
+     * request of this client's {@link #pendingRequests}, for example because the request has already timed out, is
+     * dropped and counted in the {@link #metrics}.
+     *
+     * @param data
+     */
+    protected void completeRequest(Data data)
+    {
+        PendingRequest pending = this.pendingRequests.remove(parseCorrelationId(data.getID()));
+
+        if (pending != null)
+        {
+            pending.complete(data);
+        }
+        else
+        {
+            this.metrics.responseUnmatched();
+        }
+    }
+
+    /**
+     * Hands the payload of the given publication to all listeners of its topic.
+     *
+     * @param publication
+     */
+    protected void handleIncomingPublication(Publication publication)
+    {
+        List<Consumer> listeners = this.topicListeners.get(publication.getTopic());
+
+        if (listeners != null)
+        {
+            for (Consumer listener : listeners)
+            {
+                listener.accept(publication.getPayload());
+            }
+        }
+    }
+
+    /**
+     * Called when the other side subscribes to a topic. Only servers keep track of subscriptions, so this does
+     * nothing by default.
+     *
+     * @param subscribe
+     */
+    protected void handleIncomingSubscribe(Subscribe subscribe)
+    {
+    }
+
+    /**
+     * Called when the other side unsubscribes from a topic. Only servers keep track of subscriptions, so this does
+     * nothing by default.
+     *
+     * @param unsubscribe
+     */
+    protected void handleIncomingUnsubscribe(Unsubscribe unsubscribe)
+    {
+    }
+
+    /**
+     * Subscribes to the given topic at the server. Every object that is {@link Server#publish(String, Object)
+     * published} to the topic is handed to the given listener on the processing threads of this client.
+     *
+     * <p>
+     * Subscriptions are renewed automatically after a reconnect.
+     * </p>
+     *
+     * @param topic
+     * @param listener
+     * @throws IOException
+     */
+    public <T> void subscribe(String topic, Consumer<T> listener) throws IOException
+    {
+        boolean[] first = new boolean[1];
+
+        this.topicListeners.compute(topic, (t, listeners) ->
+        {
+            if (listeners == null)
+            {
+                listeners = new CopyOnWriteArrayList<>();
+                first[0] = true;
+            }
+
+            listeners.add(listener);
+            return listeners;
+        });
+
+        if (first[0])
+        {
+            try
+            {
+                sendObject(new Subscribe(topic));
+            }
+            catch (IOException | RuntimeException e)
+            {
+                // the server does not know the subscription, so the listener must not stay registered either
+                this.topicListeners.computeIfPresent(topic, (t, listeners) ->
+                {
+                    listeners.remove(listener);
+                    return listeners.isEmpty() ? null : listeners;
+                });
+
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Removes all listeners of the given topic and unsubscribes from it at the server.
+     *
+     * @param topic
+     * @throws IOException
+     */
+    public void unsubscribe(String topic) throws IOException
+    {
+        if (this.topicListeners.remove(topic) != null)
+        {
+            sendObject(new Unsubscribe(topic));
+        }
+    }
+
+    /**
+     * @return The topics that this client is subscribed to.
+     */
+    public Set<String> getSubscribedTopics()
+    {
+        return Collections.unmodifiableSet(this.topicListeners.keySet());
+    }
+
+    /**
+     * Subscribes again to all topics after a reconnect, since the server does not know the new connection yet.
+     */
+    protected void resubscribe()
+    {
+        for (String topic : this.topicListeners.keySet())
+        {
+            try
+            {
+                sendNow(new Subscribe(topic));
+            }
+            catch (IOException e)
+            {
+                dispatchExceptionEvent(new UnspecifiedClientException(this, e), false);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Answers a legacy keep alive. A peer that offers {@link ControlFrame control frames} is told that they are
+     * understood, every other peer gets the plain pong it expects.
+     *
+     * @param ka
+     */
+    protected void handleIncomingKeepAlive(KeepAlive ka)
+    {
+        boolean offered = ControlFrame.OFFER.equals(ka.getData().get());
+
+        if (offered)
+        {
+            this.controlFrames = true;
+        }
+
+        try
+        {
+            sendObject(new Acknowledge(new Data(String.class, offered ? ControlFrame.ACCEPT : "Pong", ka.getData().getID())));
+        }
+        catch (IOException e)
+        {
+            dispatchExceptionEvent(new UnspecifiedClientException(this, e), false);
+        }
+    }
+
+    /**
+     * Sends the given object as a {@link Request}. The response can be obtained through the returned {@link Async}.
+     *
+     * @param data
+     * @return
+     * @throws IOException
+     * @see #request(Object)
+     */
     public <T> Async<T> send(Object data) throws IOException
     {
-        Data<T> outgoingData = new Data(data.getClass(), data, StringID.uniqueID());
-        return send(outgoingData);
+        Data<T> outgoingData = new Data(data.getClass(), data, nextDataId());
+        return send(outgoingData);
+    }
+
+    /**
+     * Sends the given data as a {@link Request}. The response can be obtained through the returned {@link Async}.
+     *
+     * <p>
+     * The request is registered in the pending request table of this client like those of {@link #request(Object)},
+     * so the id of the data has to be numeric, and the returned {@link Async} fails if no response arrives within the
+     * {@link #setRequestTimeout(long) request timeout}.
+     * </p>
+     *
+     * @param data
+     * @return
+     * @throws IOException
+     *             An {@link InvalidDataIdException} if the id of the data is not a positive number.
+     */
+    public <T> Async<T> send(Data data) throws IOException
+    {
+        long id = parseCorrelationId(data.getID());
+
+        if (id == 0)
+        {
+            throw new InvalidDataIdException("Data id '" + data.getID() + "' is not a positive number", null);
+        }
+
+        PendingRequest<T> pending = request(data, id, this.requestTimeout);
+        return new PendingAsync<>(data.getID(), pending);
+    }
+
+    /**
+     * Sends the given object as a {@link Request} and registers it in the pending request table of this client.
+     *
+     * <p>
+     * If no response arrives within the {@link #setRequestTimeout(long) request timeout} the request is removed, and
+     * all pending requests fail once the connection is closed.
+     * </p>
+     *
+     * @param data
+     * @return
+     * @throws IOException
+     */
+    public <T> PendingRequest<T> request(Object data) throws IOException
+    {
+        return request(data, this.requestTimeout);
+    }
+
+    /**
+     * Sends the given object as a {@link Request} without blocking for the response.
+     *
+     * <p>
+     * The returned future is completed by the reading thread as soon as the matching {@link Response} or
+     * {@link Acknowledge} arrives, or exceptionally with a {@link TimeoutException} if none arrives within the
+     * {@link #setRequestTimeout(long) request timeout}. Dependent stages that do more than trivial work should use the
+     * async variants of {@link CompletableFuture}, otherwise they block the reading thread.
+     * </p>
+     *
+     * @param data
+     * @return
+     */
+    public <T> CompletableFuture<T> sendAsync(Object data)
+    {
+        return sendAsync(data, this.requestTimeout);
+    }
+
+    /**
+     * Sends the given object as a {@link Request} without blocking for the response.
+     *
+     * @param data
+     * @param timeout
+     *            The time in milliseconds to wait for the response. 0 to wait until the connection is closed.
+     * @return
+     * @see #sendAsync(Object)
+     */
+    public <T> CompletableFuture<T> sendAsync(Object data, long timeout)
+    {
+        try
+        {
+            PendingRequest<T> pending = request(data, timeout);
+            return pending.getFuture();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Registers a new request with the given timeout and sends it.
+     *
+     * @param data
+     * @param timeout
+     *            The time in milliseconds to wait for the response. 0 to wait until the connection is closed.
+     * @return
+     * @throws IOException
+     */
+    protected <T> PendingRequest<T> request(Object data, long timeout) throws IOException
+    {
+        long id = nextCorrelationId();
+        return request(new Data(data.getClass(), data, Long.toString(id)), id, timeout);
+    }
+
+    /**
+     * Registers a request for the given data under the given correlation id and sends it.
+     *
+     * @param data
+     * @param id
+     *            The correlation id, which has to match the id of the data.
+     * @param timeout
+     *            The time in milliseconds to wait for the response. 0 to wait until the connection is closed.
+     * @return
+     * @throws IOException
+     */
+    protected <T> PendingRequest<T> request(Data data, long id, long timeout) throws IOException
+    {
+        PendingRequest<T> pending = this.pendingRequests.register(id, timeout);
+        Timeout timer = null;
+
+        if (timeout > 0)
+        {
+            timer = TimerWheel.get().schedule(() ->
+            {
+                if (this.pendingRequests.remove(id) != null)
+                {
+                    var e = new TimeoutException("No response for request " + id + " within " + timeout + " ms");
+
+                    // callbacks of the future run on the completing thread, which must not be the shared timer wheel
+                    this.executor.executeCached(() -> pending.fail(e));
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+        }
+
+        Timeout requestTimer = timer;
+        long sent = System.nanoTime();
+
+        pending.getFuture().whenComplete((result, e) ->
+        {
+            if (requestTimer != null)
+            {
+                requestTimer.cancel();
+            }
+
+            if (e == null)
+            {
+                this.metrics.recordRequestLatency(System.nanoTime() - sent);
+            }
+        });
+
+        try
+        {
+            sendObject(new Request(data));
+        }
+        catch (IOException | RuntimeException e)
+        {
+            pending.cancel();
+            throw e;
+        }
+
+        return pending;
+    }
+
+    /**
+     * Creates a new id for outgoing data. Ids are numeric so that they can be used as correlation ids by a
+     * {@link BinaryFrameCodec} and the {@link #pendingRequests}.
+     *
+     * @return
+     */
+    protected String nextDataId()
+    {
+        return Long.toString(nextCorrelationId());
+    }
+
+    /**
+     * @return A new correlation id, never 0.
+     */
+    protected long nextCorrelationId()
+    {
+        return DATA_IDS.incrementAndGet();
+    }
+
+    /**
+     * Parses the given data id as correlation id.
+     *
+     * @param id
+     * @return The correlation id or 0 if the id is not numeric.
+     */
+    protected long parseCorrelationId(String id)
+    {
+        long value = 0;
+
+        if (id == null || id.isEmpty() || id.length() > 18)
+        {
+            return 0;
+        }
+
+        for (int i = 0; i < id.length(); i ++ )
+        {
+            char c = id.charAt(i);
+
+            if (c < '0' || c > '9')
+            {
+                return 0;
+            }
+
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+    protected void sendResponse(Data data) throws IOException
+    {
+        sendObject(new Response(data));
+    }
+
+    /**
+     * Sends the given object. If {@link #setWriteBatching(int, long) write batching} is enabled the object is only
+     * queued and written by the writer thread later on.
+     *
+     * @param obj
+     * @throws IOException
+     */
+    protected void sendObject(Object obj) throws IOException
+    {
+        if (this.reconnectBuffer != null && bufferWhileReconnecting(obj))
+        {
+            return;
+        }
+
+        sendNow(obj);
+    }
+
+    /**
+     * Sends the given object without checking the {@link #reconnectBuffer}.
+     *
+     * @param obj
+     * @throws IOException
+     *             A {@link SocketException} if this client is not running, its writer thread has stopped or its
+     *             {@link #outboundQueue} is full.
+     */
+    protected void sendNow(Object obj) throws IOException
+    {
+        if (!this.running)
+        {
+            throw new SocketException("Client is not running");
+        }
+
+        if (this.outboundQueue != null)
+        {
+            if (this.writerSocket.get() == null)
+            {
+                throw new SocketException("Writer thread is not running");
+            }
+
+            if (!this.outboundQueue.offer(obj))
+            {
+                throw new SocketException("Outbound queue is full");
+            }
+        }
+        else
+        {
+            writeObject(obj, this.autoFlush);
+        }
+    }
+
+    /**
+     * Adds the given object to the {@link #reconnectBuffer} if this client is reconnecting or buffered objects are
+     * still waiting to be replayed, so that the original order is kept.
+     *
+     * @param obj
+     * @return true if the object has been buffered.
+     * @throws IOException
+     *             If the buffer is full.
+     */
+    protected boolean bufferWhileReconnecting(Object obj) throws IOException
+    {
+        synchronized (this.reconnectBuffer)
+        {
+            if (!isReconnecting() && this.reconnectBuffer.isEmpty())
+            {
+                return false;
+            }
+
+            if (!this.reconnectBuffer.offer(registeredRequest(obj)))
+            {
+                throw new SocketException("Reconnect buffer is full");
+            }
+        }
+
+        // the connection might not come back for a while, so expired objects are discarded without waiting for it
+        TimerWheel.get().schedule(() -> this.executor.executeCached(this::expireBuffered),
+                                  this.reconnectBuffer.getMaxDelayNanos(),
+                                  TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    /**
+     * Marks the given object if it is a {@link Request} registered in the {@link #pendingRequests}, so that a replay
+     * can tell such requests apart from requests that were sent as plain objects and are never registered.
+     *
+     * @param obj
+     * @return A {@link RegisteredRequest} or the given object.
+     */
+    protected Object registeredRequest(Object obj)
+    {
+        if (obj instanceof Request)
+        {
+            long id = parseCorrelationId(((Request)obj).getData().getID());
+
+            if (id != 0 && this.pendingRequests.get(id) != null)
+            {
+                return new RegisteredRequest((Request)obj, id);
+            }
+        }
+
+        return obj;
+    }
+
+    /**
+     * Discards all objects in the {@link #reconnectBuffer} whose delay has passed.
+     */
+    protected void expireBuffered()
+    {
+        var timedOut = new TimeoutException("Request was not sent within the reconnect buffer delay");
+        this.reconnectBuffer.expire(expired -> failUnsent(expired, timedOut));
+    }
+
+    /**
+     * Sends all objects held by the {@link #reconnectBuffer}. Registered requests that have timed out or were cancelled
+     * in the meantime are skipped, everything else is sent as long as the buffer delay has not passed. If the
+     * connection breaks again the remaining objects are kept for the next reconnect.
+     */
+    protected void replayBuffered()
+    {
+        synchronized (this.reconnectBuffer)
+        {
+            var timedOut = new TimeoutException("Request was not sent within the reconnect buffer delay");
+            Object obj;
+
+            while ((obj = this.reconnectBuffer.poll(expired -> failUnsent(expired, timedOut))) != null)
+            {
+                if (obj instanceof RegisteredRequest)
+                {
+                    var registered = (RegisteredRequest)obj;
+
+                    if (this.pendingRequests.get(registered.id) == null)
+                    {
+                        // nobody waits for the response anymore
+                        continue;
+                    }
+
+                    obj = registered.request;
+                }
+
+                try
+                {
+                    sendNow(obj);
+                }
+                catch (IOException e)
+                {
+                    failUnsent(obj, e);
+                    dispatchExceptionEvent(new UnspecifiedClientException(this, e), false);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all objects from the {@link #outboundQueue} and fails their requests, so that a writer of a later
+     * connection does not send objects whose connection has already failed.
+     *
+     * @param reason
+     */
+    protected void failQueued(Exception reason)
+    {
+        if (this.outboundQueue == null)
+        {
+            return;
+        }
+
+        Object obj;
+
+        while ((obj = this.outboundQueue.poll()) != null)
+        {
+            failUnsent(obj, reason);
+        }
+    }
+
+    /**
+     * Fails the pending request of the given object that could not be sent if it is a {@link Request}. Other objects
+     * are dropped.
+     *
+     * @param obj
+     * @param reason
+     */
+    protected void failUnsent(Object obj, Exception reason)
+    {
+        if (obj instanceof RegisteredRequest)
+        {
+            obj = ((RegisteredRequest)obj).request;
+        }
+
+        if (obj instanceof Request)
+        {
+            PendingRequest pending = this.pendingRequests.remove(parseCorrelationId(((Request)obj).getData().getID()));
+
+            if (pending != null)
+            {
+                pending.fail(reason);
+            }
+        }
+    }
+
+    /**
+     * Renews the topic subscriptions and replays the objects that were sent while reconnecting.
+     */
+    @Override
+    protected void reconnected()
+    {
+        super.reconnected();
+        resubscribe();
+
+        if (this.reconnectBuffer != null)
+        {
+            replayBuffered();
+        }
+    }
+
+    /**
+     * Writes the given object to the socket streams.
+     *
+     * @param obj
+     * @param flush
+     *            Indicates whether the streams should be flushed after writing.
+     * @throws IOException
+     */
+    protected void writeObject(Object obj, boolean flush) throws IOException
+    {
+        if (obj instanceof EncodedMessage)
+        {
+            writeEncoded((EncodedMessage)obj, flush);
+            return;
+        }
+
+        try
+        {
+            if (this.frameCodec != null)
+            {
+                // frames do not depend on any stream state, so they can be encoded before taking the lock
+                byte[] frame = this.frameCodec.encode(obj);
+
+                synchronized (this)
+                {
+                    this.frameOut.writeInt(frame.length);
+                    this.frameOut.write(frame);
+
+                    if (flush)
+                    {
+                        this.frameOut.flush();
+                    }
+                }
+            }
+            else
+            {
+                synchronized (this)
+                {
+                    this.out.writeObject(obj);
+                    resetIfRequired();
+
+                    if (flush)
+                    {
+                        this.out.flush();
+                    }
+                }
+            }
+
+            this.metrics.messageSent(MessageType.of(obj));
+        }
+        catch (NotSerializableException e)
+        {
+            failUnsent(obj, e);
+            dispatchExceptionEvent(new UnspecifiedClientException(this, e), false);
+        }
+    }
+
+    /**
+     * Sends a message that has been encoded once for several connections. Unlike {@link #sendObject(Object)} this
+     * never serializes the message again for this connection, unless it uses a different codec than the one the
+     * message was first encoded with.
+     *
+     * @param message
+     * @throws IOException
+     */
+    public void sendEncoded(EncodedMessage message) throws IOException
+    {
+        sendObject(message);
+    }
+
+    /**
+     * Writes the shared encoding of the given message to the socket streams.
+     *
+     * <p>
+     * With object streams the encoding is written between two {@link ObjectOutputStream#reset() resets}, so that the
+     * handles it assigns on the receiving side do not conflict with the state of {@link #out}.
+     * </p>
+     *
+     * @param message
+     * @param flush
+     *            Indicates whether the streams should be flushed after writing.
+     * @throws IOException
+     */
+    protected void writeEncoded(EncodedMessage message, boolean flush) throws IOException
+    {
+        if (this.frameCodec != null)
+        {
+            byte[] frame = message.getFrame(this.frameCodec);
+
+            synchronized (this)
+            {
+                this.frameOut.writeInt(frame.length);
+                this.frameOut.write(frame);
+
+                if (flush)
+                {
+                    this.frameOut.flush();
+                }
+            }
+        }
+        else
+        {
+            byte[] encoded = message.getStreamEncoding();
+
+            synchronized (this)
+            {
+                this.out.reset();
+                drainObjectStream();
+                this.streamOut.write(encoded);
+                this.out.reset();
+                this.streamResets += 2;
+                this.messagesSinceReset = 0;
+                this.bytesAtLastReset = this.metrics.getBytesOut();
+
+                if (flush)
+                {
+                    this.out.flush();
+                }
+            }
+        }
+
+        this.metrics.messageSent(message.getType());
+    }
+
+    /**
+     * Moves the data buffered by {@link #out} to {@link #streamOut} without flushing it to the socket, so that
+     * {@link #streamOut} can be written to directly.
+     *
+     * @throws IOException
+     */
+    protected void drainObjectStream() throws IOException
+    {
+        this.outTarget.setSuppressed(true);
+
+        try
+        {
+            this.out.flush();
+        }
+        finally
+        {
+            this.outTarget.setSuppressed(false);
+        }
+    }
+
+    /**
+     * Writes all buffered data to the socket. This is only required if {@link #setAutoFlush(boolean) auto flush} has
+     * been disabled.
+     *
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException
+    {
+        if (this.frameOut != null)
+        {
+            this.frameOut.flush();
+        }
+
+        if (this.out != null)
+        {
+            this.out.flush();
+        }
+    }
+
+    /**
+     * Drains the {@link #outboundQueue} and writes its objects in batches with a single flush per batch. Runs until the
+     * given socket is closed or replaced by a reconnect.
+     *
+     * <p>
+     * An object that can not be encoded only fails its own request. If writing to the connection fails, the requests
+     * of the batch are failed and the connection is handled as lost.
+     * </p>
+     *
+     * @param socket
+     *            The socket that this writer was started for.
+     */
+    protected void writeBatches(Socket socket)
+    {
+        List<Object> batch = new ArrayList<>(this.maxBatchSize);
+        long linger = TimeUnit.MICROSECONDS.toNanos(this.maxLingerMicros);
+
+        try
+        {
+            while (this.running && this.socket == socket && !socket.isClosed())
+            {
+                try
+                {
+                    Object first = this.outboundQueue.poll(100, TimeUnit.MILLISECONDS);
+
+                    if (first == null)
+                    {
+                        continue;
+                    }
+
+                    batch.add(first);
+                    this.outboundQueue.drainTo(batch, this.maxBatchSize - batch.size());
+
+                    long deadline = System.nanoTime() + linger;
+                    long remaining = linger;
+
+                    // wait a little for more objects to fill up the batch
+                    while (remaining > 0 && batch.size() < this.maxBatchSize)
+                    {
+                        Object next = this.outboundQueue.poll(remaining, TimeUnit.NANOSECONDS);
+
+                        if (next == null)
+                        {
+                            break;
+                        }
+
+                        batch.add(next);
+                        this.outboundQueue.drainTo(batch, this.maxBatchSize - batch.size());
+                        remaining = deadline - System.nanoTime();
+                    }
+
+                    synchronized (this)
+                    {
+                        for (Object obj : batch)
+                        {
+                            writeBatched(obj);
+                        }
+
+                        flush();
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                catch (IOException e)
+                {
+                    for (Object obj : batch)
+                    {
+                        failUnsent(obj, e);
+                    }
+
+                    connectionFailed(socket, e, false);
+                    break;
+                }
+                finally
+                {
+                    batch.clear();
+                }
+            }
+        }
+        finally
+        {
+            this.writerSocket.compareAndSet(socket, null);
+        }
+    }
+
+    /**
+     * Writes a single object of a batch. An object that can not be encoded fails its own request without affecting the
+     * rest of the batch.
+     *
+     * @param obj
+     * @throws IOException
+     *             If writing to the connection failed.
+     */
+    protected void writeBatched(Object obj) throws IOException
+    {
+        try
+        {
+            writeObject(obj, false);
+        }
+        catch (InvalidDataIdException | RuntimeException e)
+        {
+            failUnsent(obj, e);
+            dispatchExceptionEvent(new UnspecifiedClientException(this, e), false);
+        }
     }
 
-    public <T> Async<T> send(Data data) throws IOException
+    /**
+     * Resets {@link #out} if the {@link #resetPolicy} demands it. Must be called while holding the monitor of this
+     * client.
+     *
+     * @throws IOException
+     */
+    protected void resetIfRequired() throws IOException
     {
-        Async async = new Async(data.getID());
-        sendObject(new Request(data));
-        return async;
+        this.messagesSinceReset ++ ;
+        long bytes = this.metrics.getBytesOut();
+
+        if (this.resetPolicy.shouldReset(this.messagesSinceReset, bytes - this.bytesAtLastReset))
+        {
+            this.out.reset();
+            this.streamResets ++ ;
+            this.messagesSinceReset = 0;
+            this.bytesAtLastReset = bytes;
+        }
     }
 
-    protected void sendResponse(Data data) throws IOException
+    /**
+     * Registers a {@link bt.remote.socket.jmx.ClientMXBean} if JMX is enabled and connects to the server.
+     */
+    @Override
+    public void start()
     {
-        sendObject(new Response(data));
+        registerMBean();
+        super.start();
+    }
+
+    @Override
+    public void kill()
+    {
+        if (this.reconnectBuffer != null)
+        {
+            var reason = new SocketException("Client has been killed");
+            this.reconnectBuffer.clear(obj -> failUnsent(obj, reason));
+        }
+
+        super.kill();
+        unregisterMBean();
     }
 
-    protected synchronized void sendObject(Object obj) throws IOException
+    protected void registerMBean()
     {
+        if (!this.jmxEnabled)
+        {
+            return;
+        }
+
         try
         {
-            this.out.writeObject(obj);
+            this.mbeanName = MBeans.name("Client",
+                                         "host", this.host,
+                                         "port", Integer.toString(this.port),
+                                         "id", Long.toString(MBeans.nextId()));
+            MBeans.register(new ClientStats(this), this.mbeanName);
         }
-        catch (NotSerializableException e)
+        catch (JMException e)
         {
+            this.mbeanName = null;
             dispatchExceptionEvent(new UnspecifiedClientException(this, e), false);
         }
     }
 
+    protected void unregisterMBean()
+    {
+        ObjectName name = this.mbeanName;
+        this.mbeanName = null;
+        Exceptions.ignoreThrow(() -> MBeans.unregister(name));
+    }
+
+    /**
+     * Enables or disables exposing this client as MBean under <code>bt.remote:type=Client</code>. It is enabled by
+     * default, except for {@link ServerClient server side clients}, which are covered by the MBean of their server.
+     * This has to be called before the client is started.
+     *
+     * @param jmxEnabled
+     */
+    public void setJmxEnabled(boolean jmxEnabled)
+    {
+        this.jmxEnabled = jmxEnabled;
+    }
+
+    public boolean isJmxEnabled()
+    {
+        return this.jmxEnabled;
+    }
+
     @Override
     protected void startThreads()
     {
         super.startThreads();
 
-        if (this.sendKeepAlives)
+        if (this.outboundQueue != null)
         {
-            Threads.get().execute(this::sendKeepAlive, "Ping-Thread " + this.host + ":" + this.port);
+            Socket socket = this.socket;
+            this.writerSocket.set(socket);
+            this.executor.execute(() -> writeBatches(socket), "Writer-Thread " + this.host + ":" + this.port);
         }
+
+        startKeepAlives();
     }
 
     @Override
@@ -275,15 +1713,25 @@ public class ObjectClient extends Client
     {
         try
         {
-            Object incoming = this.in.readObject();
+            Object incoming = this.frameCodec != null ? readFrame() : this.in.readObject();
+            processIncoming(incoming);
+        }
+        catch (OptionalDataException e)
+        {
+            if (e.eof)
+            {
+                throw e;
+            }
 
-            if (this.singleThreadProcessing)
+            if (e.length % 4 != 0)
             {
-                dispatchIncomingData(incoming);
+                throw new StreamCorruptedException("Invalid control frame data of " + e.length + " bytes");
             }
-            else
+
+            // primitive data between objects can only consist of control frames
+            for (int i = 0; i < e.length / 4; i ++ )
             {
-                Threads.get().executeCached(() -> dispatchIncomingData(incoming));
+                handleControlFrame(this.in.readInt());
             }
         }
         catch (ClassNotFoundException e)
@@ -292,6 +1740,69 @@ public class ObjectClient extends Client
         }
     }
 
+    /**
+     * Hands the given incoming object to {@link #dispatchIncomingData(Object)}.
+     *
+     * <p>
+     * Responses and acknowledgements only complete a waiting request, so they are dispatched directly on the calling
+     * reading thread. Everything else is processed by the {@link #executor} within the bounds of the
+     * {@link #inboundLimit} unless {@link #singleThreadProcessing} is enabled.
+     * </p>
+     *
+     * @param incoming
+     * @throws IOException
+     *             If the inbound queue is full and the connection should be closed.
+     */
+    protected void processIncoming(Object incoming) throws IOException
+    {
+        this.lastInbound = System.nanoTime();
+        this.metrics.messageReceived(MessageType.of(incoming));
+
+        if (this.singleThreadProcessing || incoming instanceof Response || incoming instanceof Acknowledge)
+        {
+            dispatchIncomingData(incoming);
+        }
+        else
+        {
+            process(() -> dispatchIncomingData(incoming));
+        }
+    }
+
+    /**
+     * Reads a single length prefixed frame from {@link #frameIn} and decodes it with the set {@link #frameCodec}.
+     * {@link ControlFrame Control frames} in front of it are handled along the way.
+     *
+     * @return The decoded object.
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    protected Object readFrame() throws IOException, ClassNotFoundException
+    {
+        int length;
+
+        while ((length = this.frameIn.readInt()) < 0)
+        {
+            handleControlFrame(length);
+        }
+
+        if (length > FrameCodec.DEFAULT_MAX_FRAME_LENGTH)
+        {
+            throw new StreamCorruptedException("Invalid frame length " + length);
+        }
+
+        ByteBuffer frame = this.bufferPool.acquire(length);
+
+        try
+        {
+            this.frameIn.readFully(frame.array(), frame.arrayOffset(), length);
+            return this.frameCodec.decode(frame.array(), frame.arrayOffset(), length);
+        }
+        finally
+        {
+            this.bufferPool.release(frame);
+        }
+    }
+
     protected void dispatchIncomingData(Object incoming)
     {
         try
@@ -312,6 +1823,18 @@ public class ObjectClient extends Client
             {
                 handleIncomingAcknowledge((Acknowledge)incoming);
             }
+            else if (incoming instanceof Publication)
+            {
+                handleIncomingPublication((Publication)incoming);
+            }
+            else if (incoming instanceof Subscribe)
+            {
+                handleIncomingSubscribe((Subscribe)incoming);
+            }
+            else if (incoming instanceof Unsubscribe)
+            {
+                handleIncomingUnsubscribe((Unsubscribe)incoming);
+            }
             else
             {
                 handleIncomingObject(incoming);
@@ -328,7 +1851,13 @@ public class ObjectClient extends Client
     {
         Exceptions.ignoreThrow(() -> Null.checkClose(this.in));
         Exceptions.ignoreThrow(() -> Null.checkClose(this.out));
+        Exceptions.ignoreThrow(() -> Null.checkClose(this.frameIn));
+        Exceptions.ignoreThrow(() -> Null.checkClose(this.frameOut));
+        Null.checkRun(this.keepAliveTimer, () -> this.keepAliveTimer.cancel());
         super.closeResources();
+        var reason = new SocketException("Connection closed");
+        failQueued(reason);
+        this.pendingRequests.failAll(reason);
     }
 
     public boolean isSendKeepAlives()
@@ -341,6 +1870,38 @@ public class ObjectClient extends Client
         this.sendKeepAlives = sendKeepAlives;
     }
 
+    /**
+     * @return The time in milliseconds that the peer has to complete the handshake of a new connection.
+     */
+    public long getHandshakeTimeout()
+    {
+        return this.handshakeTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds that the peer has to complete the handshake of a new connection. If it takes
+     * longer the connection is closed and counted as handshake timeout in the metrics.
+     *
+     * <p>
+     * This has to be called before the connection is established.
+     * </p>
+     *
+     * @param handshakeTimeout
+     *            The timeout or 0 to wait indefinitely.
+     */
+    public void setHandshakeTimeout(long handshakeTimeout)
+    {
+        this.handshakeTimeout = Math.max(0, handshakeTimeout);
+    }
+
+    /**
+     * @return The state of the handshake of the current connection.
+     */
+    public HandshakeState getHandshakeState()
+    {
+        return this.handshakeState.get();
+    }
+
     /**
      * Gets the time between keepalives in milliseconds. This is also the time that is waited for a keepalive response
      * before deeming the connection as broken.
@@ -364,6 +1925,231 @@ public class ObjectClient extends Client
         this.keepAliveTimeout = keepAliveTimeout;
     }
 
+    /**
+     * Sets whether the time waited for a keepalive response adapts to the measured round trip times. If enabled the
+     * timeout is the smoothed round trip time plus four times its variation, but at least the
+     * {@link #setMinKeepAliveTimeout(long) minimum} and at most the {@link #setKeepAliveTimeout(long) keepalive
+     * timeout}. Until the first response arrives the full keepalive timeout is used.
+     *
+     * <p>
+     * On fast links the adaptive timeout quickly shrinks to the minimum, so a GC pause or a stalled peer that lasts
+     * longer than the minimum closes the connection. Only enable this together with a minimum that such pauses stay
+     * below.
+     * </p>
+     *
+     * <p>
+     * Default: false
+     * </p>
+     *
+     * @param adaptiveKeepAliveTimeout
+     */
+    public void setAdaptiveKeepAliveTimeout(boolean adaptiveKeepAliveTimeout)
+    {
+        this.adaptiveKeepAliveTimeout = adaptiveKeepAliveTimeout;
+    }
+
+    public boolean isAdaptiveKeepAliveTimeout()
+    {
+        return this.adaptiveKeepAliveTimeout;
+    }
+
+    /**
+     * Sets the shortest time in milliseconds that is waited for a keepalive response if the timeout is adaptive.
+     *
+     * <p>
+     * Default: 1000
+     * </p>
+     *
+     * @param minKeepAliveTimeout
+     */
+    public void setMinKeepAliveTimeout(long minKeepAliveTimeout)
+    {
+        this.minKeepAliveTimeout = minKeepAliveTimeout;
+    }
+
+    public long getMinKeepAliveTimeout()
+    {
+        return this.minKeepAliveTimeout;
+    }
+
+    /**
+     * Holds messages that are sent while the client is {@link #autoReconnect(int) reconnecting} instead of failing
+     * them, and sends them in their original order once the connection is back. Messages that could not be sent within
+     * the given delay are dropped, and requests among them fail with a {@link TimeoutException}. Requests also stay
+     * bound to their own request timeout.
+     *
+     * <p>
+     * Sending fails with a {@link SocketException} while the buffer is full.
+     * </p>
+     *
+     * @param capacity
+     *            The maximum number of held messages. 0 to disable holding messages.
+     * @param maxDelay
+     *            The maximum time in milliseconds that a message is held.
+     */
+    public void setReconnectBuffer(int capacity, long maxDelay)
+    {
+        this.reconnectBuffer = capacity > 0 ? new ReconnectBuffer(capacity, maxDelay) : null;
+    }
+
+    /**
+     * @return The number of messages currently held until the connection is back.
+     */
+    public int getReconnectBufferSize()
+    {
+        return this.reconnectBuffer == null ? 0 : this.reconnectBuffer.size();
+    }
+
+    /**
+     * Sets the policy that decides when the outgoing object stream is reset. Resetting releases all objects retained by
+     * the object streams on both sides of the connection. This has no effect if a {@link FrameCodec} is used, since
+     * frames do not share any state.
+     *
+     * @param resetPolicy
+     */
+    public void setResetPolicy(ResetPolicy resetPolicy)
+    {
+        this.resetPolicy = resetPolicy;
+    }
+
+    public ResetPolicy getResetPolicy()
+    {
+        return this.resetPolicy;
+    }
+
+    /**
+     * @return The total number of bytes written to the socket, including previous connections.
+     */
+    public long getBytesSent()
+    {
+        return this.metrics.getBytesOut();
+    }
+
+    /**
+     * @return The total number of sent messages, including previous connections.
+     */
+    public long getMessagesSent()
+    {
+        return this.metrics.getMessagesOut();
+    }
+
+    /**
+     * @return The number of times that the outgoing object stream has been reset.
+     */
+    public long getStreamResets()
+    {
+        return this.streamResets;
+    }
+
+    /**
+     * Enables write batching with a queue of {@link #DEFAULT_OUTBOUND_QUEUE_CAPACITY}.
+     *
+     * @param maxBatchSize
+     *            The maximum number of objects written with a single flush. 0 or less disables write batching.
+     * @param maxLingerMicros
+     *            The maximum time in microseconds that the writer waits for more objects once it received the first
+     *            object of a batch. 0 to write whatever is queued immediately.
+     * @see #setWriteBatching(int, long, int)
+     */
+    public void setWriteBatching(int maxBatchSize, long maxLingerMicros)
+    {
+        setWriteBatching(maxBatchSize, maxLingerMicros, DEFAULT_OUTBOUND_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Enables write batching. Sent objects are then put into a queue which is drained by a single writer thread that
+     * writes up to maxBatchSize objects with a single flush. Concurrent senders no longer wait for each other, and
+     * pipelined messages end up in few large TCP writes instead of many small ones.
+     *
+     * <p>
+     * Sending fails with a {@link SocketException} while the queue is full. Objects that are still queued when the
+     * connection fails or is closed are discarded and their requests fail.
+     * </p>
+     *
+     * <p>
+     * This has to be called before the client is started.
+     * </p>
+     *
+     * @param maxBatchSize
+     *            The maximum number of objects written with a single flush. 0 or less disables write batching.
+     * @param maxLingerMicros
+     *            The maximum time in microseconds that the writer waits for more objects once it received the first
+     *            object of a batch. 0 to write whatever is queued immediately.
+     * @param queueCapacity
+     *            The maximum number of objects waiting to be written.
+     */
+    public void setWriteBatching(int maxBatchSize, long maxLingerMicros, int queueCapacity)
+    {
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerMicros = maxLingerMicros;
+        this.outboundQueue = maxBatchSize > 0 ? new LinkedBlockingQueue<>(Math.max(1, queueCapacity)) : null;
+    }
+
+    public int getMaxBatchSize()
+    {
+        return this.maxBatchSize;
+    }
+
+    public long getMaxLingerMicros()
+    {
+        return this.maxLingerMicros;
+    }
+
+    /**
+     * Sets whether the streams are flushed after every sent object. If this is disabled sent objects stay buffered
+     * until {@link #flush()} is called or the buffer is full. This has no effect if write batching is enabled, since
+     * the writer flushes after every batch.
+     *
+     * @param autoFlush
+     */
+    public void setAutoFlush(boolean autoFlush)
+    {
+        this.autoFlush = autoFlush;
+    }
+
+    public boolean isAutoFlush()
+    {
+        return this.autoFlush;
+    }
+
+    /**
+     * @return The number of objects waiting to be written by the writer thread.
+     */
+    public int getOutboundQueueSize()
+    {
+        return this.outboundQueue == null ? 0 : this.outboundQueue.size();
+    }
+
+    /**
+     * Sets the time in milliseconds after which requests sent via {@link #request(Object)} without a response are
+     * removed from the pending request table and failed.
+     *
+     * @param requestTimeout
+     */
+    public void setRequestTimeout(long requestTimeout)
+    {
+        this.requestTimeout = requestTimeout;
+    }
+
+    public long getRequestTimeout()
+    {
+        return this.requestTimeout;
+    }
+
+    /**
+     * @return The number of requests that are currently waiting for a response.
+     */
+    public int getPendingRequestCount()
+    {
+        return this.pendingRequests.size();
+    }
+
+    @Override
+    public MetricsSnapshot getMetricsSnapshot()
+    {
+        return this.metrics.snapshot(getInboundQueueDepth(), getOutboundQueueSize(), getPendingRequestCount());
+    }
+
     /**
      * @return the currentPing
      */
@@ -371,4 +2157,27 @@ public class ObjectClient extends Client
     {
         return this.currentPing;
     }
+
+    /**
+     * @return The round trip times measured by keepalives, including those of previous connections.
+     */
+    public RttEstimator getRtt()
+    {
+        return this.rtt;
+    }
+
+    /**
+     * A buffered {@link Request} whose response is awaited through the {@link #pendingRequests}.
+     */
+    private static final class RegisteredRequest
+    {
+        final Request request;
+        final long id;
+
+        RegisteredRequest(Request request, long id)
+        {
+            this.request = request;
+            this.id = id;
+        }
+    }
 }
\ No newline at end of file
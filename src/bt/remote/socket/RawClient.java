@@ -1,12 +1,14 @@
 package bt.remote.socket;
 
+import bt.remote.socket.buffer.PooledInputStream;
 import bt.remote.socket.data.*;
 import bt.remote.socket.evnt.client.UnspecifiedClientException;
-import bt.scheduler.Threads;
+import bt.remote.socket.metrics.MessageType;
 import bt.utils.Exceptions;
 import bt.utils.Null;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 public class RawClient extends Client
@@ -54,28 +56,38 @@ public class RawClient extends Client
         super();
     }
 
+    /**
+     * Sets up a reader that returns whatever bytes are currently available, without any message boundaries. Use one of
+     * the frame readers such as {@link LengthFieldFrameReader}, {@link DelimiterFrameReader} or
+     * {@link FixedLengthFrameReader} via {@link #setDataReader(RawDataReader)} if the protocol has frames.
+     */
     protected void setupDefaultDataReader()
     {
         setDataReader(in -> {
-            byte[] data = new byte[4096];
-            int bytes = 0;
-            int messageLength = 0;
+            ByteBuffer buffer = this.bufferPool.acquire(4096);
 
-            bytes = in.read(data);
-
-            if (bytes == -1)
+            try
             {
-                throw new EOFException("Reached end of stream");
-            }
+                int offset = buffer.arrayOffset();
+                int bytes = in.read(buffer.array(), offset, 4096);
 
-            data = Arrays.copyOf(data, bytes);
+                if (bytes == -1)
+                {
+                    throw new EOFException("Reached end of stream");
+                }
 
-            return data;
+                return Arrays.copyOfRange(buffer.array(), offset, offset + bytes);
+            }
+            finally
+            {
+                this.bufferPool.release(buffer);
+            }
         });
     }
 
     /**
-     * Sets the instance that will be called to read data from the given stream.
+     * Sets the instance that will be called to read data from the given stream. Every returned array is handed to the
+     * {@link ByteProcessor} as one message.
      *
      * @param reader
      */
@@ -100,7 +112,8 @@ public class RawClient extends Client
         super.setupConnection();
         this.out = this.socket.getOutputStream();
         this.out.flush();
-        this.in = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
+        var socketIn = new CountingInputStream(this.socket.getInputStream(), this.metrics::addBytesIn);
+        this.in = new DataInputStream(new PooledInputStream(socketIn, this.bufferPool));
     }
 
     protected void handleData(byte[] data)
@@ -123,6 +136,8 @@ public class RawClient extends Client
         try
         {
             this.out.write(data);
+            this.metrics.addBytesOut(data.length);
+            this.metrics.messageSent(MessageType.RAW);
         }
         catch (IOException e)
         {
@@ -136,6 +151,7 @@ public class RawClient extends Client
         if (this.reader != null)
         {
             byte[] data = this.reader.read(this.in);
+            this.metrics.messageReceived(MessageType.RAW);
 
             if (this.singleThreadProcessing)
             {
@@ -143,7 +159,7 @@ public class RawClient extends Client
             }
             else
             {
-                Threads.get().executeCached(() -> handleData(data));
+                process(() -> handleData(data));
             }
         }
     }
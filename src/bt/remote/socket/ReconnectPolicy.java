@@ -0,0 +1,186 @@
+package bt.remote.socket;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides how often and after which delays a {@link Client} tries to reconnect after losing its connection.
+ *
+ * <p>
+ * The delay before an attempt grows exponentially from the initial delay up to the maximum delay. With full jitter
+ * enabled the actual delay is picked uniformly between 0 and that value, so that clients which lost their connection
+ * at the same time, for example due to a server restart, spread their attempts out instead of reconnecting in lock
+ * step.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class ReconnectPolicy
+{
+    /**
+     * The policy used by clients unless configured otherwise. Starts at 100 ms, doubles up to 30 seconds with full
+     * jitter and never gives up.
+     */
+    public static final ReconnectPolicy DEFAULT = new ReconnectPolicy(100, 2, 30000, true, -1, 0);
+
+    /** The delay in milliseconds before the first attempt, before jitter is applied. */
+    private final long initialDelay;
+
+    /** The factor that the delay grows by with every attempt. */
+    private final double multiplier;
+
+    /** The maximum delay in milliseconds between two attempts, before jitter is applied. */
+    private final long maxDelay;
+
+    /** Indicates whether delays are picked randomly between 0 and the calculated delay. */
+    private final boolean jitter;
+
+    /** The maximum number of attempts. -1 for infinite attempts. */
+    private final int maxAttempts;
+
+    /** The time in milliseconds after which no further attempt is started. 0 or less for no limit. */
+    private final long maxDuration;
+
+    /**
+     * Creates a new policy.
+     *
+     * @param initialDelay
+     *            The delay in milliseconds before the first attempt.
+     * @param multiplier
+     *            The factor that the delay grows by with every attempt. 1 for a fixed delay.
+     * @param maxDelay
+     *            The maximum delay in milliseconds between two attempts.
+     * @param jitter
+     *            true to pick every delay randomly between 0 and the calculated delay.
+     * @param maxAttempts
+     *            The maximum number of attempts. -1 for infinite attempts.
+     * @param maxDuration
+     *            The time in milliseconds after which no further attempt is started. 0 for no limit.
+     */
+    public ReconnectPolicy(long initialDelay, double multiplier, long maxDelay, boolean jitter, int maxAttempts, long maxDuration)
+    {
+        this.initialDelay = Math.max(0, initialDelay);
+        this.multiplier = Math.max(1, multiplier);
+        this.maxDelay = Math.max(this.initialDelay, maxDelay);
+        this.jitter = jitter;
+        this.maxAttempts = maxAttempts;
+        this.maxDuration = maxDuration;
+    }
+
+    /**
+     * @param maxAttempts
+     *            The maximum number of attempts. -1 for infinite attempts.
+     * @return A policy that retries immediately without any delay. This was the behavior of earlier versions.
+     */
+    public static ReconnectPolicy immediate(int maxAttempts)
+    {
+        return new ReconnectPolicy(0, 1, 0, false, maxAttempts, 0);
+    }
+
+    /**
+     * @param delay
+     *            The delay in milliseconds before every attempt.
+     * @param maxAttempts
+     *            The maximum number of attempts. -1 for infinite attempts.
+     * @return A policy that waits the same time before every attempt.
+     */
+    public static ReconnectPolicy fixed(long delay, int maxAttempts)
+    {
+        return new ReconnectPolicy(delay, 1, delay, false, maxAttempts, 0);
+    }
+
+    /**
+     * @param initialDelay
+     *            The delay in milliseconds before the first attempt.
+     * @param maxDelay
+     *            The maximum delay in milliseconds between two attempts.
+     * @param maxAttempts
+     *            The maximum number of attempts. -1 for infinite attempts.
+     * @return A policy that doubles the delay after every attempt and applies full jitter.
+     */
+    public static ReconnectPolicy exponential(long initialDelay, long maxDelay, int maxAttempts)
+    {
+        return new ReconnectPolicy(initialDelay, 2, maxDelay, true, maxAttempts, 0);
+    }
+
+    /**
+     * @param maxAttempts
+     * @return A copy of this policy with the given maximum number of attempts.
+     */
+    public ReconnectPolicy withMaxAttempts(int maxAttempts)
+    {
+        return new ReconnectPolicy(this.initialDelay, this.multiplier, this.maxDelay, this.jitter, maxAttempts, this.maxDuration);
+    }
+
+    /**
+     * @param maxDuration
+     * @return A copy of this policy with the given time budget in milliseconds.
+     */
+    public ReconnectPolicy withMaxDuration(long maxDuration)
+    {
+        return new ReconnectPolicy(this.initialDelay, this.multiplier, this.maxDelay, this.jitter, this.maxAttempts, maxDuration);
+    }
+
+    /**
+     * Gets the delay before the given attempt.
+     *
+     * @param attempt
+     *            The number of the attempt, starting at 1.
+     * @return The delay in milliseconds.
+     */
+    public long getDelay(int attempt)
+    {
+        double delay = this.initialDelay * Math.pow(this.multiplier, Math.max(0, attempt - 1));
+        long capped = (long)Math.min(this.maxDelay, delay);
+
+        if (this.jitter && capped > 0)
+        {
+            return ThreadLocalRandom.current().nextLong(capped + 1);
+        }
+
+        return capped;
+    }
+
+    /**
+     * Checks whether another attempt should be made.
+     *
+     * @param attempt
+     *            The number of the next attempt, starting at 1.
+     * @param elapsed
+     *            The time in milliseconds since reconnecting started.
+     * @return
+     */
+    public boolean canAttempt(int attempt, long elapsed)
+    {
+        return (this.maxAttempts == -1 || attempt <= this.maxAttempts) && (this.maxDuration <= 0 || elapsed < this.maxDuration);
+    }
+
+    public long getInitialDelay()
+    {
+        return this.initialDelay;
+    }
+
+    public double getMultiplier()
+    {
+        return this.multiplier;
+    }
+
+    public long getMaxDelay()
+    {
+        return this.maxDelay;
+    }
+
+    public boolean isJitter()
+    {
+        return this.jitter;
+    }
+
+    public int getMaxAttempts()
+    {
+        return this.maxAttempts;
+    }
+
+    public long getMaxDuration()
+    {
+        return this.maxDuration;
+    }
+}
\ No newline at end of file
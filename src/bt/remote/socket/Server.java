@@ -2,19 +2,38 @@ package bt.remote.socket;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.net.StandardSocketOptions;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 import bt.console.output.styled.Style;
 import bt.log.Log;
+import bt.remote.socket.data.EncodedMessage;
+import bt.remote.socket.data.FrameCodec;
+import bt.remote.socket.data.Publication;
 import bt.remote.socket.evnt.mcast.MulticastClientEvent;
 import bt.remote.socket.evnt.server.*;
 import bt.remote.socket.exc.WrappedException;
+import bt.remote.socket.jmx.MBeans;
+import bt.remote.socket.jmx.ServerStats;
+import bt.remote.socket.metrics.ConnectionMetrics;
+import bt.remote.socket.metrics.MetricsSnapshot;
+import bt.remote.socket.thread.ConnectionExecutor;
+import bt.remote.socket.thread.OverflowPolicy;
+import bt.remote.socket.thread.ProcessingPool;
+import bt.remote.socket.thread.PlatformThreadExecutor;
+import bt.remote.socket.topic.TopicRegistry;
 import bt.runtime.InstanceKiller;
 import bt.runtime.evnt.Dispatcher;
-import bt.scheduler.Threads;
 import bt.types.Killable;
 import bt.utils.Array;
 import bt.utils.Exceptions;
@@ -32,6 +51,9 @@ import bt.utils.Null;
  */
 public class Server implements Killable, Runnable
 {
+    /** The backlog used unless configured otherwise, which matches the default of {@link ServerSocket}. */
+    public static final int DEFAULT_BACKLOG = 50;
+
     /** A name/description of this server. Used to give information via multicast if enabled. */
     protected String name;
 
@@ -47,32 +69,180 @@ public class Server implements Killable, Runnable
     /** A dispatcher to distribute server related events such as {@link NewClientConnection}. */
     protected Dispatcher eventDispatcher;
 
-    /** A list of all currently connected clients. */
-    protected List<ServerClient> clients;
+    /** All currently connected clients. */
+    protected ClientRegistry clients;
 
     /** A flag to indicate if this server is currently or should be running (=waiting for new connections). */
     protected volatile boolean running;
 
     protected int port;
 
+    /** The executor used to run the threads of this server and of all clients it creates. */
+    protected ConnectionExecutor executor;
+
+    /** The codec used by all created clients. If this is null clients use object streams. */
+    protected FrameCodec frameCodec;
+
+    /** The inbound queue capacity of all created clients. 0 for unbounded queues. */
+    protected int inboundQueueCapacity;
+
+    /** The overflow policy of the inbound queues of all created clients. */
+    protected OverflowPolicy inboundOverflowPolicy = OverflowPolicy.BLOCK;
+
+    /** The pool that created clients process their messages on in order, or null for unordered processing. */
+    protected Executor orderedProcessingPool;
+
+    /** The totals of all connections of this server, including closed ones. */
+    protected ConnectionMetrics metrics;
+
+    /** The number of connections accepted by this server. */
+    protected LongAdder acceptedConnections;
+
+    /** Indicates whether this server is exposed as MBean while it is running. */
+    protected boolean jmxEnabled = true;
+
+    /** The name of the registered MBean of this server, null if none is registered. */
+    protected ObjectName mbeanName;
+
+    /** The number of queued outgoing messages above which a client counts as slow consumer. 0 for no limit. */
+    protected int broadcastQueueLimit;
+
+    /** Decides what happens with broadcasts to slow consumers. */
+    protected OverflowPolicy broadcastOverflowPolicy = OverflowPolicy.DROP;
+
+    /** The number of broadcast messages that slow consumers did not receive. */
+    protected LongAdder droppedBroadcasts;
+
+    /** The topic subscriptions of the connected clients. */
+    protected TopicRegistry topicRegistry;
+
+    /** The time in milliseconds that created clients have to complete their handshake. 0 to wait indefinitely. */
+    protected long handshakeTimeout = 10000;
+
+    /** The maximum number of connections waiting to be accepted. */
+    protected int backlog;
+
+    /** The local address that the server is bound to, null for all local addresses. */
+    protected InetAddress bindAddress;
+
+    /** The number of threads accepting connections. */
+    protected int acceptorCount;
+
+    /**
+     * The sockets of the additional acceptor threads, bound to the same port with SO_REUSEPORT. Empty if all acceptors
+     * share {@link #serverSocket}.
+     */
+    protected ServerSocket[] additionalSockets = new ServerSocket[0];
+
     /**
-     * Creates a new server and binds it to localhost and the given port.
+     * Creates a new server and binds it to all local addresses and the given port, using a single acceptor thread and
+     * the {@link #DEFAULT_BACKLOG default backlog}.
      *
      * @param port
      *            The port to listen on.
      * @throws IOException
      */
     public Server(int port) throws IOException
+    {
+        this(port, DEFAULT_BACKLOG, null, 1);
+    }
+
+    /**
+     * Creates a new server and binds it to the given address and port.
+     *
+     * <p>
+     * With more than one acceptor, every acceptor thread gets its own socket bound with SO_REUSEPORT if the platform
+     * supports it, so that the kernel distributes incoming connections between their accept queues. Otherwise all
+     * acceptor threads share one socket. Note that with SO_REUSEPORT other sockets of the same user can bind to the
+     * port as well.
+     * </p>
+     *
+     * @param port
+     *            The port to listen on.
+     * @param backlog
+     *            The maximum number of connections waiting to be accepted.
+     * @param bindAddress
+     *            The local address to listen on or null for all local addresses.
+     * @param acceptorCount
+     *            The number of threads accepting connections.
+     * @throws IOException
+     */
+    public Server(int port, int backlog, InetAddress bindAddress, int acceptorCount) throws IOException
     {
         InstanceKiller.killOnShutdown(this);
         this.port = port;
+        this.backlog = backlog;
+        this.bindAddress = bindAddress;
+        this.acceptorCount = Math.max(1, acceptorCount);
         this.eventDispatcher = new Dispatcher();
-        this.serverSocket = new ServerSocket(port);
-        this.clients = new CopyOnWriteArrayList<>();
+        this.executor = new PlatformThreadExecutor();
+        this.metrics = new ConnectionMetrics();
+        this.acceptedConnections = new LongAdder();
+        this.droppedBroadcasts = new LongAdder();
+        this.topicRegistry = new TopicRegistry();
+        this.serverSocket = createServerSocket(port);
+        this.clients = new ClientRegistry();
         this.name = "";
         this.host = InetAddress.getLocalHost().getHostName();
     }
 
+    /**
+     * Called by the constructor to create the socket that receives connections.
+     *
+     * <p>
+     * The default implementation creates a new {@link ServerSocket} bound to the given port, the {@link #bindAddress}
+     * and with the {@link #backlog}.
+     * </p>
+     *
+     * @param port
+     * @return
+     * @throws IOException
+     */
+    protected ServerSocket createServerSocket(int port) throws IOException
+    {
+        var socket = new ServerSocket();
+
+        if (this.acceptorCount > 1 && isReusePortSupported(socket))
+        {
+            socket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+        }
+
+        socket.bind(new InetSocketAddress(this.bindAddress, port), this.backlog);
+        return socket;
+    }
+
+    /**
+     * Creates the sockets of the additional acceptor threads if SO_REUSEPORT is supported. Called once the server is
+     * started.
+     *
+     * @throws IOException
+     */
+    protected void createAdditionalSockets() throws IOException
+    {
+        if (this.acceptorCount < 2 || !isReusePortSupported(this.serverSocket)
+            || !this.serverSocket.getOption(StandardSocketOptions.SO_REUSEPORT))
+        {
+            return;
+        }
+
+        this.additionalSockets = new ServerSocket[this.acceptorCount - 1];
+
+        for (int i = 0; i < this.additionalSockets.length; i ++ )
+        {
+            var socket = new ServerSocket();
+            socket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+
+            // the port of the first socket is used, since the configured port might have been 0
+            socket.bind(new InetSocketAddress(this.bindAddress, this.serverSocket.getLocalPort()), this.backlog);
+            this.additionalSockets[i] = socket;
+        }
+    }
+
+    private static boolean isReusePortSupported(ServerSocket socket)
+    {
+        return socket.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+    }
+
     /**
      * Sets up a {@link MulticastClient} using {@link MulticastClient#DEFAULT_GROUP_ADDRESS} and
      * {@link MulticastClient#DEFAULT_PORT}.
@@ -123,6 +293,7 @@ public class Server implements Killable, Runnable
     public void setupMultiCastDiscovering(String multicastGroupAdress, int port) throws IOException
     {
         this.multicastClient = new MulticastClient(port, multicastGroupAdress);
+        this.multicastClient.setExecutor(this.executor);
 
         // forwarding events to this instances dispatcher because this client is quite encapsuled
         this.multicastClient.getEventDispatcher().subscribeTo(MulticastClientEvent.class, this.eventDispatcher::dispatch);
@@ -158,17 +329,27 @@ public class Server implements Killable, Runnable
      * @throws IOException
      */
     protected boolean awaitConnection() throws IOException
+    {
+        return awaitConnection(this.serverSocket);
+    }
+
+    /**
+     * Waits for a connection on the given socket and hands it to {@link #initializeClient(Socket)} on another thread,
+     * so that a slow handshake does not hold up accepting further connections.
+     *
+     * @param serverSocket
+     * @return
+     * @throws IOException
+     */
+    protected boolean awaitConnection(ServerSocket serverSocket) throws IOException
     {
         boolean connected = false;
 
-        if (!this.serverSocket.isClosed())
+        if (!serverSocket.isClosed())
         {
-            Socket socket = this.serverSocket.accept();
-            ServerClient client = createClient(socket);
-            client.setServer(this);
-            this.clients.add(client);
-            client.start();
-            this.eventDispatcher.dispatch(new NewClientConnection(this, client));
+            Socket socket = serverSocket.accept();
+            this.acceptedConnections.increment();
+            this.executor.executeCached(() -> initializeClient(socket));
 
             connected = true;
         }
@@ -176,6 +357,58 @@ public class Server implements Killable, Runnable
         return connected;
     }
 
+    /**
+     * Creates, configures and starts the client for a newly accepted connection.
+     *
+     * <p>
+     * The client is only added to the {@link #getClientRegistry() client registry} once it has been started, so that
+     * broadcasts, {@link #getClients()} and listeners of {@link NewClientConnection} never see a client whose
+     * handshake is still in progress.
+     * </p>
+     *
+     * @param socket
+     */
+    protected void initializeClient(Socket socket)
+    {
+        try
+        {
+            ServerClient client = createClient(socket);
+            configureClient(client);
+
+            try
+            {
+                client.start();
+            }
+            catch (WrappedException e)
+            {
+                // nobody handled the failed start, so the client did not get to kill itself
+                client.kill();
+                dispatchExceptionEvent(new UnspecifiedServerException(this, (Exception)e.getCause()), false);
+                return;
+            }
+
+            this.clients.add(client);
+
+            if (!client.isConnected())
+            {
+                // the client was killed before it was registered, so its own removal did not find it
+                removeClient(client);
+                return;
+            }
+
+            this.eventDispatcher.dispatch(new NewClientConnection(this, client));
+        }
+        catch (IOException e)
+        {
+            Exceptions.ignoreThrow(() -> socket.close());
+
+            if (this.running)
+            {
+                dispatchExceptionEvent(new UnspecifiedServerException(this, e), false);
+            }
+        }
+    }
+
     /**
      * Called by {@link Server#awaitConnection()} whenever a new connection is established.
      *
@@ -192,19 +425,374 @@ public class Server implements Killable, Runnable
         return new ServerClient(socket);
     }
 
+    /**
+     * Applies the settings of this server to a newly created client before it is started.
+     *
+     * @param client
+     */
+    protected void configureClient(ServerClient client)
+    {
+        client.setServer(this);
+        client.setExecutor(this.executor);
+        client.setFrameCodec(this.frameCodec);
+        client.setInboundQueue(this.inboundQueueCapacity, this.inboundOverflowPolicy);
+        client.setOrderedProcessing(this.orderedProcessingPool);
+        client.setMetrics(new ConnectionMetrics(this.metrics));
+        client.setHandshakeTimeout(this.handshakeTimeout);
+    }
+
     protected void removeClient(ServerClient client)
     {
-        if (this.clients.remove(client))
+        boolean removed = this.clients.remove(client);
+
+        // kill() stops a client before removing it, so a concurrent subscribe either sees that or is removed here
+        this.topicRegistry.unsubscribeAll(client);
+
+        if (removed)
         {
             this.eventDispatcher.dispatch(new RemovedClientConnection(this, client));
         }
     }
 
-    public List<ServerClient> getClients()
+    /**
+     * Gets the currently connected clients.
+     *
+     * <p>
+     * The returned collection is a read only view that is not copied, so it reflects clients that connect or
+     * disconnect later on and is iterated weakly consistent: iteration never fails due to concurrent changes, but
+     * may or may not see such clients. Use {@link ClientRegistry#snapshot()} of the {@link #getClientRegistry() client
+     * registry} for a stable copy.
+     * </p>
+     *
+     * @return The connected clients.
+     */
+    public Collection<ServerClient> getClients()
+    {
+        return this.clients.view();
+    }
+
+    /**
+     * @return The currently connected clients, indexed by their id and remote address.
+     */
+    public ClientRegistry getClientRegistry()
     {
         return this.clients;
     }
 
+    /**
+     * @return The number of currently connected clients.
+     */
+    public int getClientCount()
+    {
+        return this.clients.size();
+    }
+
+    /**
+     * Sends the given object to all connected clients.
+     *
+     * @param message
+     * @return The number of clients that the message has been sent or queued to.
+     * @throws IOException
+     *             If the message can not be encoded.
+     * @see #broadcast(Object, Iterable)
+     */
+    public int broadcast(Object message) throws IOException
+    {
+        return broadcast(message, this.clients);
+    }
+
+    /**
+     * Sends the given object to all connected clients that match the given filter.
+     *
+     * @param message
+     * @param filter
+     * @return The number of clients that the message has been sent or queued to.
+     * @throws IOException
+     *             If the message can not be encoded.
+     * @see #broadcast(Object, Iterable)
+     */
+    public int broadcast(Object message, Predicate<? super ServerClient> filter) throws IOException
+    {
+        var encoded = encodeBroadcast(message);
+        int sent = 0;
+
+        for (ServerClient client : this.clients)
+        {
+            if (filter.test(client) && sendBroadcast(client, encoded))
+            {
+                sent ++ ;
+            }
+        }
+
+        return sent;
+    }
+
+    /**
+     * Sends the given object to every client of the given group.
+     *
+     * <p>
+     * The message is serialized once and the same bytes are written to every connection, instead of serializing it
+     * again for every client. Clients with {@link ServerClient#setWriteBatching(int, long) write batching} and
+     * clients of a {@link bt.remote.socket.nio.SelectorServer SelectorServer} only queue the message, all other
+     * clients write it on the calling thread. Clients that are still handshaking are skipped.
+     * </p>
+     *
+     * <p>
+     * Clients whose outgoing queue has reached the {@link #setBroadcastLimit(int, OverflowPolicy) broadcast limit}
+     * are treated according to the set policy.
+     * </p>
+     *
+     * @param message
+     * @param group
+     * @return The number of clients that the message has been sent or queued to.
+     * @throws IOException
+     *             If the message can not be encoded.
+     */
+    public int broadcast(Object message, Iterable<? extends ServerClient> group) throws IOException
+    {
+        var encoded = encodeBroadcast(message);
+        int sent = 0;
+
+        for (ServerClient client : group)
+        {
+            if (sendBroadcast(client, encoded))
+            {
+                sent ++ ;
+            }
+        }
+
+        return sent;
+    }
+
+    /**
+     * Sends the given object as {@link Publication} to all clients that are subscribed to the given topic, see
+     * {@link ObjectClient#subscribe(String, java.util.function.Consumer)}. Like {@link #broadcast(Object, Iterable)}
+     * the message is only serialized once, and clients that are not subscribed are not touched at all.
+     *
+     * @param topic
+     * @param message
+     * @return The number of clients that the message has been sent or queued to.
+     * @throws IOException
+     *             If the message can not be encoded.
+     */
+    public int publish(String topic, Object message) throws IOException
+    {
+        Set<ServerClient> subscribers = this.topicRegistry.getSubscribers(topic);
+
+        if (subscribers.isEmpty())
+        {
+            return 0;
+        }
+
+        return broadcast(new Publication<>(topic, message), subscribers);
+    }
+
+    /**
+     * @return The topic subscriptions of the connected clients.
+     */
+    public TopicRegistry getTopicRegistry()
+    {
+        return this.topicRegistry;
+    }
+
+    /**
+     * Encodes the given message up front, so that encoding errors are reported to the caller once instead of by every
+     * client.
+     *
+     * @param message
+     * @return
+     * @throws IOException
+     */
+    protected EncodedMessage encodeBroadcast(Object message) throws IOException
+    {
+        var encoded = new EncodedMessage(message);
+
+        if (this.frameCodec != null)
+        {
+            encoded.getFrame(this.frameCodec);
+        }
+        else
+        {
+            encoded.getStreamEncoding();
+        }
+
+        return encoded;
+    }
+
+    /**
+     * Sends a single broadcast message to the given client, unless it is a slow consumer that should not receive it.
+     *
+     * @param client
+     * @param message
+     * @return true if the message has been sent or queued.
+     */
+    protected boolean sendBroadcast(ServerClient client, EncodedMessage message)
+    {
+        // the streams of a client are only usable once its handshake is done
+        if (!client.isConnected() || client.getHandshakeState() != HandshakeState.ESTABLISHED)
+        {
+            return false;
+        }
+
+        try
+        {
+            if (this.broadcastQueueLimit > 0 && client.getOutboundQueueSize() >= this.broadcastQueueLimit)
+            {
+                this.droppedBroadcasts.increment();
+
+                if (this.broadcastOverflowPolicy == OverflowPolicy.FAIL)
+                {
+                    client.kill();
+                }
+
+                return false;
+            }
+
+            client.sendEncoded(message);
+            return true;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            // a single broken client must not keep the message from the remaining clients
+            dispatchExceptionEvent(new UnspecifiedServerException(this, e), false);
+            return false;
+        }
+    }
+
+    /**
+     * Sets how broadcasts treat slow consumers, meaning clients that have at least the given number of outgoing
+     * messages queued.
+     *
+     * <p>
+     * Only clients that queue their outgoing messages can become slow consumers, which are clients with
+     * {@link ServerClient#setWriteBatching(int, long) write batching} and clients of a
+     * {@link bt.remote.socket.nio.SelectorServer SelectorServer}. All other clients write broadcasts on the
+     * broadcasting thread and are never affected by the limit, so write batching has to be enabled, for example in an
+     * overridden {@link #configureClient(ServerClient)}, for the limit to take effect.
+     * </p>
+     *
+     * <p>
+     * {@link OverflowPolicy#DROP} skips the message for that client and {@link OverflowPolicy#FAIL} closes the
+     * connection of the client. {@link OverflowPolicy#BLOCK} is not supported, since a single slow consumer would hold
+     * up the broadcast to every other client.
+     * </p>
+     *
+     * @param maxQueued
+     *            The number of queued messages from which on a client is a slow consumer. 0 or less for no limit.
+     * @param policy
+     * @throws IllegalArgumentException
+     *             If the policy is {@link OverflowPolicy#BLOCK}.
+     */
+    public void setBroadcastLimit(int maxQueued, OverflowPolicy policy)
+    {
+        if (policy == OverflowPolicy.BLOCK)
+        {
+            throw new IllegalArgumentException("Broadcasts can not block on slow consumers");
+        }
+
+        this.broadcastQueueLimit = maxQueued;
+        this.broadcastOverflowPolicy = policy;
+    }
+
+    /**
+     * @return The number of broadcast messages that slow consumers did not receive.
+     */
+    public long getDroppedBroadcasts()
+    {
+        return this.droppedBroadcasts.sum();
+    }
+
+    /**
+     * Registers a {@link bt.remote.socket.jmx.ServerMXBean} for this server if JMX is enabled.
+     */
+    protected void registerMBean()
+    {
+        if (!this.jmxEnabled)
+        {
+            return;
+        }
+
+        try
+        {
+            // several servers can share a port through different bind addresses or SO_REUSEPORT
+            this.mbeanName = MBeans.name("Server",
+                                         "name", this.name,
+                                         "address", this.serverSocket.getInetAddress().getHostAddress(),
+                                         "port", Integer.toString(getPort()),
+                                         "id", Long.toString(MBeans.nextId()));
+            MBeans.register(new ServerStats(this), this.mbeanName);
+        }
+        catch (JMException e)
+        {
+            this.mbeanName = null;
+            dispatchExceptionEvent(new UnspecifiedServerException(this, e), false);
+        }
+    }
+
+    protected void unregisterMBean()
+    {
+        ObjectName name = this.mbeanName;
+        this.mbeanName = null;
+        Exceptions.ignoreThrow(() -> MBeans.unregister(name));
+    }
+
+    /**
+     * Enables or disables exposing this server as MBean under <code>bt.remote:type=Server</code>. It is enabled by
+     * default. This has to be called before the server is started.
+     *
+     * @param jmxEnabled
+     */
+    public void setJmxEnabled(boolean jmxEnabled)
+    {
+        this.jmxEnabled = jmxEnabled;
+    }
+
+    public boolean isJmxEnabled()
+    {
+        return this.jmxEnabled;
+    }
+
+    public boolean isRunning()
+    {
+        return this.running;
+    }
+
+    /**
+     * @return The number of connections accepted by this server.
+     */
+    public long getAcceptedConnections()
+    {
+        return this.acceptedConnections.sum();
+    }
+
+    public ConnectionMetrics getMetrics()
+    {
+        return this.metrics;
+    }
+
+    /**
+     * Takes a snapshot of the totals of all connections together with the summed up queue depths of the currently
+     * connected clients. The metrics of a single connection are available through
+     * {@link ServerClient#getMetricsSnapshot()}.
+     *
+     * @return
+     */
+    public MetricsSnapshot getMetricsSnapshot()
+    {
+        int inbound = 0;
+        int outbound = 0;
+        int pending = 0;
+
+        for (ServerClient client : this.clients)
+        {
+            inbound += client.getInboundQueueDepth();
+            outbound += client.getOutboundQueueSize();
+            pending += client.getPendingRequestCount();
+        }
+
+        return this.metrics.snapshot(inbound, outbound, pending);
+    }
+
     /**
      * Gets the {@link Dispatcher} used to ditribute events of the server.
      *
@@ -301,7 +889,14 @@ public class Server implements Killable, Runnable
         }
 
         Exceptions.ignoreThrow(() -> Null.checkClose(this.serverSocket));
+
+        for (var socket : this.additionalSockets)
+        {
+            Exceptions.ignoreThrow(() -> socket.close());
+        }
+
         Null.checkKill(this.multicastClient);
+        unregisterMBean();
         this.eventDispatcher.dispatch(new ServerKilled(this));
     }
 
@@ -316,7 +911,10 @@ public class Server implements Killable, Runnable
     public void start()
     {
         this.running = true;
-        Threads.get().execute(this, "Server " + this.serverSocket.getInetAddress().getHostAddress() + ":" + this.serverSocket.getLocalPort());
+        registerMBean();
+        String address = this.serverSocket.getInetAddress().getHostAddress() + ":" + this.serverSocket.getLocalPort();
+        this.executor.execute(this, "Server " + address);
+        startAdditionalAcceptors(address);
         Null.checkRun(this.multicastClient, () -> this.multicastClient.start());
         this.eventDispatcher.dispatch(new ServerStarted(this));
     }
@@ -343,8 +941,58 @@ public class Server implements Killable, Runnable
         }
     }
 
+    /**
+     * Starts the acceptor threads beyond the first one, which is run by {@link #run()}.
+     *
+     * @param address
+     */
+    protected void startAdditionalAcceptors(String address)
+    {
+        try
+        {
+            createAdditionalSockets();
+        }
+        catch (IOException e)
+        {
+            dispatchExceptionEvent(new UnspecifiedServerException(this, e), false);
+        }
+
+        // without own sockets the additional acceptors share the first one
+        int additional = this.acceptorCount - 1;
+
+        for (int i = 0; i < additional; i ++ )
+        {
+            ServerSocket socket = i < this.additionalSockets.length ? this.additionalSockets[i] : this.serverSocket;
+            this.executor.execute(() -> acceptConnections(socket), "Acceptor-" + (i + 1) + " " + address);
+        }
+    }
+
+    /**
+     * Accepts connections on the given socket until this server is killed.
+     *
+     * @param serverSocket
+     */
+    protected void acceptConnections(ServerSocket serverSocket)
+    {
+        while (this.running)
+        {
+            try
+            {
+                awaitConnection(serverSocket);
+            }
+            catch (IOException e)
+            {
+                if (this.running)
+                {
+                    dispatchExceptionEvent(new UnspecifiedServerException(this, e), false);
+                }
+            }
+        }
+    }
+
     protected void dispatchExceptionEvent(ServerExceptionEvent event, boolean requiresHandling)
     {
+        this.metrics.errorOccurred();
         int dispatched = this.eventDispatcher.dispatch(event);
 
         if (requiresHandling && dispatched == 0)
@@ -380,6 +1028,101 @@ public class Server implements Killable, Runnable
         return host;
     }
 
+    /**
+     * Sets the codec used to exchange length prefixed frames with all clients that connect after this call. Connecting
+     * clients have to use the same codec via {@link ObjectClient#setFrameCodec(FrameCodec)}.
+     *
+     * @param frameCodec
+     *            The codec to use or null to use object streams.
+     */
+    public void setFrameCodec(FrameCodec frameCodec)
+    {
+        this.frameCodec = frameCodec;
+    }
+
+    public FrameCodec getFrameCodec()
+    {
+        return this.frameCodec;
+    }
+
+    /**
+     * Sets the time in milliseconds that clients connecting after this call have to complete their handshake. Clients
+     * that stay silent or send their stream header too slowly are closed once it has passed, instead of holding a
+     * thread indefinitely. Timeouts and handshake durations are recorded in the {@link #getMetrics() metrics}.
+     *
+     * @param handshakeTimeout
+     *            The timeout or 0 to wait indefinitely.
+     * @see ObjectClient#setHandshakeTimeout(long)
+     */
+    public void setHandshakeTimeout(long handshakeTimeout)
+    {
+        this.handshakeTimeout = Math.max(0, handshakeTimeout);
+    }
+
+    public long getHandshakeTimeout()
+    {
+        return this.handshakeTimeout;
+    }
+
+    /**
+     * Bounds the inbound queues of all clients that connect after this call.
+     *
+     * @param capacity
+     *            The maximum number of messages per client waiting for or in processing. 0 or less for unbounded
+     *            queues.
+     * @param policy
+     *            Decides what happens with messages that exceed the capacity.
+     * @see Client#setInboundQueue(int, OverflowPolicy)
+     */
+    public void setInboundQueue(int capacity, OverflowPolicy policy)
+    {
+        this.inboundQueueCapacity = capacity;
+        this.inboundOverflowPolicy = policy;
+    }
+
+    /**
+     * Enables or disables ordered processing on the shared {@link ProcessingPool} for all clients that connect after
+     * this call.
+     *
+     * @param orderedProcessing
+     * @see Client#setOrderedProcessing(Executor)
+     */
+    public void setOrderedProcessing(boolean orderedProcessing)
+    {
+        setOrderedProcessing(orderedProcessing ? ProcessingPool.get() : null);
+    }
+
+    /**
+     * Processes the messages of every client that connects after this call in order on the given shared pool, while
+     * different clients are processed in parallel.
+     *
+     * @param pool
+     *            The pool or null to disable ordered processing.
+     * @see Client#setOrderedProcessing(Executor)
+     */
+    public void setOrderedProcessing(Executor pool)
+    {
+        this.orderedProcessingPool = pool;
+    }
+
+    public ConnectionExecutor getExecutor()
+    {
+        return this.executor;
+    }
+
+    /**
+     * Sets the executor used to run the threads of this server, its {@link MulticastClient} and all clients that are
+     * created after this call.
+     *
+     * @param executor
+     * @see bt.remote.socket.thread.VirtualThreadExecutor
+     */
+    public void setExecutor(ConnectionExecutor executor)
+    {
+        this.executor = executor;
+        Null.checkRun(this.multicastClient, () -> this.multicastClient.setExecutor(executor));
+    }
+
     public MulticastClient getMulticastClient()
     {
         return this.multicastClient;
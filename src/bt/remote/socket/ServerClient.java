@@ -1,11 +1,13 @@
 package bt.remote.socket;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
+import java.net.SocketAddress;
 
+import bt.remote.socket.data.Subscribe;
+import bt.remote.socket.data.Unsubscribe;
 import bt.remote.socket.evnt.server.ServerClientKilled;
+import bt.remote.socket.topic.TopicRegistry;
 import bt.utils.Null;
 
 /**
@@ -16,20 +18,51 @@ public class ServerClient extends ObjectClient
 {
     protected Server server;
 
+    /** The id assigned by the {@link ClientRegistry} of the server. */
+    protected long id;
+
+    /** The address that this client is connected from, kept since it is not available anymore once closed. */
+    protected SocketAddress remoteAddress;
+
     public ServerClient(Socket socket) throws IOException
     {
         super();
         this.socket = socket;
         this.host = this.socket.getInetAddress().getHostAddress();
         this.port = this.socket.getPort();
+        this.remoteAddress = this.socket.getRemoteSocketAddress();
+        this.jmxEnabled = false;
     }
 
     @Override
     protected void setupConnection() throws IOException
     {
-        this.out = new ObjectOutputStream(this.socket.getOutputStream());
-        this.out.flush();
-        this.in = new ObjectInputStream(this.socket.getInputStream());
+        setupStreams();
+    }
+
+    /**
+     * @return The id of this client, unique among all clients of its server.
+     */
+    public long getId()
+    {
+        return this.id;
+    }
+
+    /**
+     * @param id
+     *            the id to set
+     */
+    public void setId(long id)
+    {
+        this.id = id;
+    }
+
+    /**
+     * @return The address that this client is connected from.
+     */
+    public SocketAddress getRemoteAddress()
+    {
+        return this.remoteAddress;
     }
 
     /**
@@ -49,6 +82,35 @@ public class ServerClient extends ObjectClient
         this.server = server;
     }
 
+    /**
+     * Subscribes this client to the topic at its server.
+     */
+    @Override
+    protected void handleIncomingSubscribe(Subscribe subscribe)
+    {
+        if (this.server == null)
+        {
+            return;
+        }
+
+        TopicRegistry registry = this.server.getTopicRegistry();
+
+        if (registry.subscribe(subscribe.getTopic(), this) && !this.running)
+        {
+            // this client was killed concurrently and the server might already have removed its subscriptions
+            registry.unsubscribe(subscribe.getTopic(), this);
+        }
+    }
+
+    /**
+     * Removes the subscription of this client to the topic at its server.
+     */
+    @Override
+    protected void handleIncomingUnsubscribe(Unsubscribe unsubscribe)
+    {
+        Null.checkRun(this.server, () -> this.server.getTopicRegistry().unsubscribe(unsubscribe.getTopic(), this));
+    }
+
     /**
      * @see bt.types.Killable#kill()
      */
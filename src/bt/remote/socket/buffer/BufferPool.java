@@ -0,0 +1,474 @@
+package bt.remote.socket.buffer;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import bt.log.Log;
+
+/**
+ * A pool of {@link ByteBuffer buffers} in power of two size classes. Allocating buffers for every message or
+ * connection puts pressure on the garbage collector, and direct buffers are even more expensive to allocate, so the
+ * socket classes take their buffers from a pool instead.
+ *
+ * <p>
+ * Every size class keeps a shared queue of idle buffers, bounded by a number of bytes. Small classes are additionally
+ * cached per thread, so a thread that repeatedly acquires and releases buffers does not touch the shared queues at
+ * all. Requests larger than the largest size class are allocated without pooling.
+ * </p>
+ *
+ * <p>
+ * If leak detection is enabled, either through {@link #setLeakDetection(boolean)} or by starting the JVM with
+ * <code>-Dbt.remote.buffer.leakDetection=true</code>, every acquired buffer is tracked until it is released. Buffers
+ * that are garbage collected without having been released and buffers that are released twice are logged together
+ * with the stack trace of their acquisition. This is meant for debugging, since it records a stack trace per acquire.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class BufferPool
+{
+    /** The system property that enables leak detection for all pools. */
+    public static final String LEAK_DETECTION_PROPERTY = "bt.remote.buffer.leakDetection";
+
+    /** The number of buffers per size class that are cached per thread. */
+    private static final int THREAD_CACHE_SIZE = 8;
+
+    /** The largest size class that is cached per thread. */
+    private static final int THREAD_CACHE_MAX_BUFFER_SIZE = 64 * 1024;
+
+    private static BufferPool heapInstance;
+
+    private static BufferPool directInstance;
+
+    /** Indicates whether this pool hands out direct buffers. */
+    protected final boolean direct;
+
+    /** The capacity of buffers returned by {@link #acquire()}. */
+    protected final int defaultSize;
+
+    /** The size classes, starting with the smallest. */
+    protected final SizeClass[] classes;
+
+    /** Idle buffers of the small size classes per thread. */
+    protected final ThreadLocal<ByteBuffer[][]> threadCache;
+
+    /** The number of buffers allocated by this pool. */
+    protected LongAdder allocated;
+
+    /** Indicates whether acquired buffers are tracked. */
+    protected volatile boolean leakDetection;
+
+    /** The tracked buffers that have been acquired and not released yet. */
+    protected Map<LeakTrace, Boolean> outstanding;
+
+    /** Receives tracked buffers that have been garbage collected. */
+    protected ReferenceQueue<ByteBuffer> collected;
+
+    /**
+     * Creates a pool with size classes from 256 bytes to 1 MB and up to 8 MB of idle buffers per size class.
+     *
+     * @param direct
+     *            true to hand out direct buffers, false for heap buffers.
+     * @param defaultSize
+     *            The capacity of buffers returned by {@link #acquire()}.
+     */
+    public BufferPool(boolean direct, int defaultSize)
+    {
+        this(direct, defaultSize, 256, 1024 * 1024, 8 * 1024 * 1024);
+    }
+
+    /**
+     * Creates a new pool.
+     *
+     * @param direct
+     *            true to hand out direct buffers, false for heap buffers.
+     * @param defaultSize
+     *            The capacity of buffers returned by {@link #acquire()}.
+     * @param minSize
+     *            The smallest size class. Rounded up to a power of two.
+     * @param maxSize
+     *            The largest size class. Rounded up to a power of two.
+     * @param maxPooledBytes
+     *            The maximum number of bytes of idle buffers kept per size class, not counting the per thread caches.
+     */
+    public BufferPool(boolean direct, int defaultSize, int minSize, int maxSize, long maxPooledBytes)
+    {
+        this.direct = direct;
+        this.defaultSize = defaultSize;
+        int min = roundUp(minSize);
+        int count = Integer.numberOfTrailingZeros(roundUp(maxSize)) - Integer.numberOfTrailingZeros(min) + 1;
+        this.classes = new SizeClass[Math.max(1, count)];
+
+        for (int i = 0; i < this.classes.length; i ++ )
+        {
+            int size = min << i;
+            this.classes[i] = new SizeClass(size, (int)Math.max(1, Math.min(Integer.MAX_VALUE, maxPooledBytes / size)));
+        }
+
+        this.threadCache = ThreadLocal.withInitial(() -> new ByteBuffer[this.classes.length][]);
+        this.allocated = new LongAdder();
+        this.outstanding = new ConcurrentHashMap<>();
+        this.collected = new ReferenceQueue<>();
+        this.leakDetection = Boolean.getBoolean(LEAK_DETECTION_PROPERTY);
+    }
+
+    /**
+     * Gets the shared pool of heap buffers, which returns 8 KB buffers by default. It is created on first use.
+     *
+     * @return
+     */
+    public static synchronized BufferPool heap()
+    {
+        if (heapInstance == null)
+        {
+            heapInstance = new BufferPool(false, 8 * 1024);
+        }
+
+        return heapInstance;
+    }
+
+    /**
+     * Gets the shared pool of direct buffers, which returns 64 KB buffers by default. It is created on first use.
+     *
+     * @return
+     */
+    public static synchronized BufferPool direct()
+    {
+        if (directInstance == null)
+        {
+            directInstance = new BufferPool(true, 64 * 1024);
+        }
+
+        return directInstance;
+    }
+
+    private static int roundUp(int size)
+    {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * Acquires a buffer of the default size.
+     *
+     * @return
+     * @see #acquire(int)
+     */
+    public ByteBuffer acquire()
+    {
+        return acquire(this.defaultSize);
+    }
+
+    /**
+     * Takes an idle buffer with at least the given capacity from the pool or allocates a new one if there is none.
+     * The buffer has to be {@link #release(ByteBuffer) released} once it is no longer used.
+     *
+     * @param minCapacity
+     * @return A cleared buffer in big endian byte order, whose capacity might be larger than requested.
+     */
+    public ByteBuffer acquire(int minCapacity)
+    {
+        int index = indexOf(minCapacity);
+
+        if (index == -1)
+        {
+            this.allocated.increment();
+            return allocate(minCapacity);
+        }
+
+        SizeClass sizeClass = this.classes[index];
+        ByteBuffer buffer = null;
+
+        if (sizeClass.size <= THREAD_CACHE_MAX_BUFFER_SIZE)
+        {
+            ByteBuffer[] cache = this.threadCache.get()[index];
+
+            if (cache != null)
+            {
+                for (int i = cache.length - 1; i >= 0 && buffer == null; i -- )
+                {
+                    buffer = cache[i];
+                    cache[i] = null;
+                }
+            }
+        }
+
+        if (buffer == null && (buffer = sizeClass.free.poll()) != null)
+        {
+            sizeClass.pooled.decrementAndGet();
+        }
+
+        if (buffer == null)
+        {
+            this.allocated.increment();
+            buffer = allocate(sizeClass.size);
+        }
+        else
+        {
+            buffer.clear();
+            buffer.order(ByteOrder.BIG_ENDIAN);
+        }
+
+        if (this.leakDetection)
+        {
+            track(buffer);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Returns the given buffer to the pool. The buffer must not be used by the caller afterwards. Buffers that do not
+     * match a size class of this pool, for example those larger than the largest size class, are ignored.
+     *
+     * @param buffer
+     */
+    public void release(ByteBuffer buffer)
+    {
+        // read only buffers are shared views that were never taken from a pool
+        if (buffer == null || buffer.isDirect() != this.direct || buffer.isReadOnly())
+        {
+            return;
+        }
+
+        int index = indexOf(buffer.capacity());
+
+        if (index == -1 || this.classes[index].size != buffer.capacity())
+        {
+            return;
+        }
+
+        if (this.leakDetection && !untrack(buffer))
+        {
+            return;
+        }
+
+        SizeClass sizeClass = this.classes[index];
+
+        if (sizeClass.size <= THREAD_CACHE_MAX_BUFFER_SIZE)
+        {
+            ByteBuffer[][] caches = this.threadCache.get();
+
+            if (caches[index] == null)
+            {
+                caches[index] = new ByteBuffer[THREAD_CACHE_SIZE];
+            }
+
+            ByteBuffer[] cache = caches[index];
+
+            for (int i = 0; i < cache.length; i ++ )
+            {
+                if (cache[i] == null)
+                {
+                    cache[i] = buffer;
+                    return;
+                }
+            }
+        }
+
+        if (sizeClass.pooled.incrementAndGet() <= sizeClass.maxPooled)
+        {
+            sizeClass.free.add(buffer);
+        }
+        else
+        {
+            sizeClass.pooled.decrementAndGet();
+        }
+    }
+
+    /**
+     * @param capacity
+     * @return The index of the smallest size class that can hold the given capacity or -1 if it is too large.
+     */
+    protected int indexOf(int capacity)
+    {
+        int index = Math.max(0, Integer.numberOfTrailingZeros(roundUp(capacity)) - Integer.numberOfTrailingZeros(this.classes[0].size));
+        return index < this.classes.length ? index : -1;
+    }
+
+    protected ByteBuffer allocate(int capacity)
+    {
+        return this.direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    protected void track(ByteBuffer buffer)
+    {
+        reportLeaks();
+        this.outstanding.put(new LeakTrace(buffer, this.collected), Boolean.TRUE);
+    }
+
+    protected boolean untrack(ByteBuffer buffer)
+    {
+        if (this.outstanding.remove(new LeakTrace(buffer, null)) == null)
+        {
+            Log.error("Released a buffer that was not acquired from this pool or was already released",
+                      new IllegalStateException("Invalid buffer release"));
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Logs all tracked buffers that have been garbage collected without having been released.
+     */
+    public void reportLeaks()
+    {
+        TraceReference reference;
+
+        while ((reference = (TraceReference)this.collected.poll()) != null)
+        {
+            LeakTrace trace = reference.trace;
+
+            if (this.outstanding.remove(trace) != null)
+            {
+                Log.error("A pooled buffer was garbage collected without being released", trace);
+            }
+        }
+    }
+
+    /**
+     * Enables or disables leak detection. Only buffers acquired while it is enabled are tracked.
+     *
+     * @param leakDetection
+     */
+    public void setLeakDetection(boolean leakDetection)
+    {
+        this.leakDetection = leakDetection;
+    }
+
+    public boolean isLeakDetection()
+    {
+        return this.leakDetection;
+    }
+
+    /**
+     * @return true if this pool hands out direct buffers, which have no accessible backing array.
+     */
+    public boolean isDirect()
+    {
+        return this.direct;
+    }
+
+    /**
+     * @return The capacity of buffers returned by {@link #acquire()}.
+     */
+    public int getDefaultSize()
+    {
+        return this.defaultSize;
+    }
+
+    /**
+     * @return The number of idle buffers in the shared queues, not counting the per thread caches.
+     */
+    public int getPooledCount()
+    {
+        int count = 0;
+
+        for (SizeClass sizeClass : this.classes)
+        {
+            count += sizeClass.pooled.get();
+        }
+
+        return count;
+    }
+
+    /**
+     * @return The number of buffers this pool had to allocate because no idle buffer was available.
+     */
+    public long getAllocatedCount()
+    {
+        return this.allocated.sum();
+    }
+
+    /**
+     * @return The number of tracked buffers that have not been released yet. Always 0 without leak detection.
+     */
+    public int getOutstandingCount()
+    {
+        return this.outstanding.size();
+    }
+
+    /**
+     * The idle buffers of one size.
+     */
+    protected static class SizeClass
+    {
+        protected final int size;
+
+        protected final int maxPooled;
+
+        protected final Queue<ByteBuffer> free;
+
+        protected final AtomicInteger pooled;
+
+        protected SizeClass(int size, int maxPooled)
+        {
+            this.size = size;
+            this.maxPooled = maxPooled;
+            this.free = new ConcurrentLinkedQueue<>();
+            this.pooled = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Remembers where a tracked buffer was acquired. Two traces are equal if they refer to the same buffer instance.
+     */
+    protected static class LeakTrace extends Throwable
+    {
+        private final WeakReference<ByteBuffer> buffer;
+
+        private final int hash;
+
+        protected LeakTrace(ByteBuffer buffer, ReferenceQueue<ByteBuffer> queue)
+        {
+            super("Buffer acquired here", null, false, queue != null);
+            this.buffer = queue != null ? new TraceReference(buffer, queue, this) : new WeakReference<>(buffer);
+            this.hash = System.identityHashCode(buffer);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+
+            if (!(obj instanceof LeakTrace))
+            {
+                return false;
+            }
+
+            ByteBuffer buffer = this.buffer.get();
+            return buffer != null && buffer == ((LeakTrace)obj).buffer.get();
+        }
+    }
+
+    /**
+     * A weak reference that leads back to its trace once it is enqueued.
+     */
+    private static class TraceReference extends WeakReference<ByteBuffer>
+    {
+        private final LeakTrace trace;
+
+        private TraceReference(ByteBuffer buffer, ReferenceQueue<ByteBuffer> queue, LeakTrace trace)
+        {
+            super(buffer, queue);
+            this.trace = trace;
+        }
+    }
+}
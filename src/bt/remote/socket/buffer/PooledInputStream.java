@@ -0,0 +1,168 @@
+package bt.remote.socket.buffer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A buffered input stream whose buffer is taken from a {@link BufferPool} and returned to it on {@link #close()}.
+ *
+ * <p>
+ * Closing the stream closes the underlying stream first, which unblocks a thread that is waiting in a read, and only
+ * returns the buffer once that read has ended. That way a buffer is never handed to another connection while it is
+ * still being filled.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class PooledInputStream extends FilterInputStream
+{
+    /** The pool that the buffer is returned to. */
+    protected final BufferPool pool;
+
+    /** The pooled buffer, null once the stream is closed. */
+    protected ByteBuffer buffer;
+
+    /** The backing array of the buffer. */
+    protected byte[] buf;
+
+    /** The index of the next byte to read from the buffer. */
+    protected int pos;
+
+    /** The number of valid bytes in the buffer. */
+    protected int count;
+
+    /**
+     * Creates a new stream with a buffer of the default size of the given pool.
+     *
+     * @param in
+     * @param pool
+     *            A pool of heap buffers.
+     * @throws IllegalArgumentException
+     *             If the pool hands out direct buffers.
+     */
+    public PooledInputStream(InputStream in, BufferPool pool)
+    {
+        super(in);
+
+        if (pool.isDirect())
+        {
+            throw new IllegalArgumentException("Streams require a pool of heap buffers");
+        }
+
+        this.pool = pool;
+        this.buffer = pool.acquire();
+        this.buf = this.buffer.array();
+    }
+
+    private void ensureOpen() throws IOException
+    {
+        if (this.buffer == null)
+        {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private boolean fill() throws IOException
+    {
+        int bytes = this.in.read(this.buf, 0, this.buf.length);
+        this.pos = 0;
+        this.count = Math.max(0, bytes);
+        return bytes > 0;
+    }
+
+    @Override
+    public synchronized int read() throws IOException
+    {
+        ensureOpen();
+
+        if (this.pos >= this.count && !fill())
+        {
+            return -1;
+        }
+
+        return this.buf[this.pos ++ ] & 0xFF;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException
+    {
+        ensureOpen();
+
+        if (len == 0)
+        {
+            return 0;
+        }
+
+        int available = this.count - this.pos;
+
+        if (available <= 0)
+        {
+            // large reads bypass the buffer instead of copying twice
+            if (len >= this.buf.length)
+            {
+                return this.in.read(b, off, len);
+            }
+
+            if (!fill())
+            {
+                return -1;
+            }
+
+            available = this.count;
+        }
+
+        int bytes = Math.min(available, len);
+        System.arraycopy(this.buf, this.pos, b, off, bytes);
+        this.pos += bytes;
+        return bytes;
+    }
+
+    @Override
+    public synchronized long skip(long n) throws IOException
+    {
+        ensureOpen();
+        int available = this.count - this.pos;
+
+        if (available > 0)
+        {
+            long skipped = Math.min(available, n);
+            this.pos += skipped;
+            return skipped;
+        }
+
+        return this.in.skip(n);
+    }
+
+    @Override
+    public synchronized int available() throws IOException
+    {
+        ensureOpen();
+        return (this.count - this.pos) + this.in.available();
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            this.in.close();
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                this.pool.release(this.buffer);
+                this.buffer = null;
+                this.buf = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package bt.remote.socket.buffer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A buffered output stream whose buffer is taken from a {@link BufferPool} and returned to it on {@link #close()}.
+ *
+ * <p>
+ * Closing the stream does not flush buffered bytes. It closes the underlying stream first, which unblocks a thread
+ * that is waiting in a write, and only returns the buffer once that write has ended.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class PooledOutputStream extends FilterOutputStream
+{
+    /** The pool that the buffer is returned to. */
+    protected final BufferPool pool;
+
+    /** The pooled buffer, null once the stream is closed. */
+    protected ByteBuffer buffer;
+
+    /** The backing array of the buffer. */
+    protected byte[] buf;
+
+    /** The number of buffered bytes. */
+    protected int count;
+
+    /**
+     * Creates a new stream with a buffer of the default size of the given pool.
+     *
+     * @param out
+     * @param pool
+     *            A pool of heap buffers.
+     * @throws IllegalArgumentException
+     *             If the pool hands out direct buffers.
+     */
+    public PooledOutputStream(OutputStream out, BufferPool pool)
+    {
+        super(out);
+
+        if (pool.isDirect())
+        {
+            throw new IllegalArgumentException("Streams require a pool of heap buffers");
+        }
+
+        this.pool = pool;
+        this.buffer = pool.acquire();
+        this.buf = this.buffer.array();
+    }
+
+    private void ensureOpen() throws IOException
+    {
+        if (this.buffer == null)
+        {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private void flushBuffer() throws IOException
+    {
+        if (this.count > 0)
+        {
+            this.out.write(this.buf, 0, this.count);
+            this.count = 0;
+        }
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException
+    {
+        ensureOpen();
+
+        if (this.count >= this.buf.length)
+        {
+            flushBuffer();
+        }
+
+        this.buf[this.count ++ ] = (byte)b;
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException
+    {
+        ensureOpen();
+
+        if (len >= this.buf.length)
+        {
+            flushBuffer();
+            this.out.write(b, off, len);
+            return;
+        }
+
+        if (len > this.buf.length - this.count)
+        {
+            flushBuffer();
+        }
+
+        System.arraycopy(b, off, this.buf, this.count, len);
+        this.count += len;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException
+    {
+        ensureOpen();
+        flushBuffer();
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            this.out.close();
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                this.pool.release(this.buffer);
+                this.buffer = null;
+                this.buf = null;
+            }
+        }
+    }
+}
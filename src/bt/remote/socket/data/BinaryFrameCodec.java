@@ -0,0 +1,239 @@
+package bt.remote.socket.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+
+import bt.async.Data;
+import bt.remote.socket.exc.InvalidDataIdException;
+
+/**
+ * A compact {@link FrameCodec} that encodes the message envelope by hand and only hands the payload to a
+ * {@link PayloadCodec}.
+ *
+ * <p>
+ * Every frame consists of
+ * <ul>
+ * <li>a type byte identifying the message class ({@link Request}, {@link Response}, {@link Acknowledge},
+ * {@link KeepAlive}, {@link Subscribe}, {@link Unsubscribe}, {@link Publication} or a plain object)</li>
+ * <li>the correlation id of the message as an 8 byte long</li>
+ * <li>for publications only, the UTF-8 encoded topic preceded by its length as 2 byte unsigned short</li>
+ * <li>the payload encoded by the payload codec</li>
+ * </ul>
+ * The length of the frame is written in front of it by the sending client. Correlation ids have to be numeric, which
+ * is the case for all ids generated by {@link bt.remote.socket.ObjectClient ObjectClient}.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class BinaryFrameCodec implements FrameCodec
+{
+    public static final byte TYPE_OBJECT = 0;
+    public static final byte TYPE_REQUEST = 1;
+    public static final byte TYPE_RESPONSE = 2;
+    public static final byte TYPE_ACKNOWLEDGE = 3;
+    public static final byte TYPE_KEEP_ALIVE = 4;
+    public static final byte TYPE_SUBSCRIBE = 5;
+    public static final byte TYPE_UNSUBSCRIBE = 6;
+    public static final byte TYPE_PUBLICATION = 7;
+
+    /** The size of the type byte and the correlation id in front of the payload. */
+    public static final int HEADER_LENGTH = 9;
+
+    /** The codec used for the payloads of all frames. */
+    protected PayloadCodec payloadCodec;
+
+    /**
+     * Creates a new instance that uses a {@link PrimitivePayloadCodec}.
+     */
+    public BinaryFrameCodec()
+    {
+        this(new PrimitivePayloadCodec());
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param payloadCodec
+     *            The codec used for the payloads of all frames.
+     */
+    public BinaryFrameCodec(PayloadCodec payloadCodec)
+    {
+        this.payloadCodec = payloadCodec;
+    }
+
+    @Override
+    public byte[] encode(Object obj) throws IOException
+    {
+        byte type = typeOf(obj);
+        long id = 0;
+        Object payload = obj;
+
+        if (type != TYPE_OBJECT)
+        {
+            Data data = ((Message)obj).getData();
+            id = parseId(data.getID());
+            payload = data.get();
+        }
+
+        var bytes = new ByteArrayOutputStream(64);
+        var out = new DataOutputStream(bytes);
+        out.writeByte(type);
+        out.writeLong(id);
+
+        if (type == TYPE_PUBLICATION)
+        {
+            byte[] topic = ((Publication)obj).getTopic().getBytes(StandardCharsets.UTF_8);
+
+            if (topic.length > 0xFFFF)
+            {
+                throw new IllegalArgumentException("Topic names are limited to 65535 bytes");
+            }
+
+            out.writeShort(topic.length);
+            out.write(topic);
+        }
+
+        this.payloadCodec.encode(payload, out);
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] frame, int offset, int length) throws IOException, ClassNotFoundException
+    {
+        if (length < HEADER_LENGTH)
+        {
+            throw new StreamCorruptedException("Frame too short: " + length);
+        }
+
+        byte type = frame[offset];
+        long id = 0;
+
+        for (int i = 1; i < HEADER_LENGTH; i ++ )
+        {
+            id = (id << 8) | (frame[offset + i] & 0xFF);
+        }
+
+        int start = offset + HEADER_LENGTH;
+        String topic = null;
+
+        if (type == TYPE_PUBLICATION)
+        {
+            if (length < HEADER_LENGTH + 2)
+            {
+                throw new StreamCorruptedException("Frame too short: " + length);
+            }
+
+            int topicLength = ((frame[start] & 0xFF) << 8) | (frame[start + 1] & 0xFF);
+
+            if (HEADER_LENGTH + 2 + topicLength > length)
+            {
+                throw new StreamCorruptedException("Invalid topic length " + topicLength);
+            }
+
+            topic = new String(frame, start + 2, topicLength, StandardCharsets.UTF_8);
+            start += 2 + topicLength;
+        }
+
+        Object payload = this.payloadCodec.decode(frame, start, offset + length - start);
+
+        if (type == TYPE_OBJECT)
+        {
+            return payload;
+        }
+
+        Data data = new Data(payload == null ? Object.class : payload.getClass(), payload, Long.toString(id));
+
+        switch (type)
+        {
+            case TYPE_REQUEST:
+                return new Request(data);
+            case TYPE_RESPONSE:
+                return new Response(data);
+            case TYPE_ACKNOWLEDGE:
+                return new Acknowledge(data);
+            case TYPE_KEEP_ALIVE:
+                return new KeepAlive(data);
+            case TYPE_SUBSCRIBE:
+                return new Subscribe(data);
+            case TYPE_UNSUBSCRIBE:
+                return new Unsubscribe(data);
+            case TYPE_PUBLICATION:
+                return new Publication(topic, data);
+            default:
+                throw new StreamCorruptedException("Unknown frame type " + type);
+        }
+    }
+
+    /**
+     * Gets the frame type of the given object. Subclasses of the message types are sent as plain objects, since
+     * their additional state would be lost otherwise.
+     *
+     * @param obj
+     * @return
+     */
+    protected byte typeOf(Object obj)
+    {
+        Class<?> type = obj == null ? null : obj.getClass();
+
+        if (type == Request.class)
+        {
+            return TYPE_REQUEST;
+        }
+        else if (type == Response.class)
+        {
+            return TYPE_RESPONSE;
+        }
+        else if (type == Acknowledge.class)
+        {
+            return TYPE_ACKNOWLEDGE;
+        }
+        else if (type == KeepAlive.class)
+        {
+            return TYPE_KEEP_ALIVE;
+        }
+        else if (type == Subscribe.class)
+        {
+            return TYPE_SUBSCRIBE;
+        }
+        else if (type == Unsubscribe.class)
+        {
+            return TYPE_UNSUBSCRIBE;
+        }
+        else if (type == Publication.class)
+        {
+            return TYPE_PUBLICATION;
+        }
+
+        return TYPE_OBJECT;
+    }
+
+    /**
+     * Converts the given data id to the correlation id written into frames.
+     *
+     * @param id
+     * @return The numeric id or 0 if the id is null or empty.
+     * @throws InvalidDataIdException
+     *             If the id is not numeric.
+     */
+    public long parseId(String id) throws InvalidDataIdException
+    {
+        if (id == null || id.isEmpty())
+        {
+            return 0;
+        }
+
+        try
+        {
+            return Long.parseLong(id);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new InvalidDataIdException("Binary frames require numeric data IDs but got '" + id + "'", e);
+        }
+    }
+}
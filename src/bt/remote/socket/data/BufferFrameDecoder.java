@@ -0,0 +1,40 @@
+package bt.remote.socket.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Splits received bytes into frames without copying them.
+ *
+ * @author &#8904
+ */
+@FunctionalInterface
+public interface BufferFrameDecoder
+{
+    /**
+     * Decodes the next frame from the remaining bytes of the given buffer.
+     *
+     * @param buffer
+     *            The received bytes between position and limit.
+     * @return A slice of the buffer containing the frame, or null if the buffer does not contain a complete frame yet.
+     *         If a frame is returned the position of the buffer is advanced past it.
+     * @throws IOException
+     *             If the bytes can not form a valid frame.
+     */
+    public ByteBuffer decode(ByteBuffer buffer) throws IOException;
+
+    /**
+     * Creates a view of the given region of the buffer without changing the buffer itself.
+     *
+     * @param buffer
+     * @param index
+     * @param length
+     * @return
+     */
+    public static ByteBuffer slice(ByteBuffer buffer, int index, int length)
+    {
+        ByteBuffer view = buffer.duplicate();
+        view.limit(index + length).position(index);
+        return view.slice();
+    }
+}
@@ -0,0 +1,27 @@
+package bt.remote.socket.data;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@link ByteBuffer} variant of a {@link ByteProcessor}.
+ *
+ * @author &#8904
+ * @see bt.remote.socket.ChannelRawClient
+ */
+@FunctionalInterface
+public interface BufferProcessor
+{
+    /**
+     * Expected to handle the incoming frame and produce a fitting response (or null if no response is required).
+     *
+     * <p>
+     * The frame is only valid for the duration of this call, since it may be a view of the read buffer of the client.
+     * </p>
+     *
+     * @param incoming
+     *            The frame between position and limit.
+     * @return Buffers that are written with a single gathering write, for example a header and a body, or null if no
+     *         response is required. The buffers remain owned by the caller.
+     */
+    public ByteBuffer[] process(ByteBuffer incoming);
+}
@@ -0,0 +1,45 @@
+package bt.remote.socket.data;
+
+/**
+ * Codes of the payload free control frames that clients exchange to check whether a connection is still alive.
+ *
+ * <p>
+ * A control frame is a single 4 byte int. With a {@link FrameCodec} it takes the place of the length prefix, which is
+ * never negative for regular frames. With object streams it is written as primitive block data between objects.
+ * </p>
+ *
+ * <p>
+ * Peers that predate control frames can not read them from an object stream, so object stream connections start out
+ * with legacy keep alives that carry {@link #OFFER} and only switch to control frames once the peer answered with
+ * {@link #ACCEPT} or sent a control frame itself. Old peers answer the offer with a plain pong.
+ * </p>
+ *
+ * @author &#8904
+ */
+public final class ControlFrame
+{
+    /** Asks the peer to answer with a {@link #PONG}. */
+    public static final int PING = -1;
+
+    /** Answers a {@link #PING}. */
+    public static final int PONG = -2;
+
+    /** The data of a legacy keep alive from a client that understands control frames. */
+    public static final String OFFER = "Ping+ControlFrames";
+
+    /** The data of the acknowledgement to an {@link #OFFER} from a client that understands control frames. */
+    public static final String ACCEPT = "Pong+ControlFrames";
+
+    private ControlFrame()
+    {
+    }
+
+    /**
+     * @param code
+     * @return true if the given int is a known control frame code.
+     */
+    public static boolean isControlFrame(int code)
+    {
+        return code == PING || code == PONG;
+    }
+}
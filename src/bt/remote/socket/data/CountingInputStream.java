@@ -0,0 +1,55 @@
+package bt.remote.socket.data;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * An input stream that reports the number of read bytes to a counter.
+ *
+ * @author &#8904
+ */
+public class CountingInputStream extends FilterInputStream
+{
+    /** The counter that read bytes are added to. */
+    protected LongConsumer counter;
+
+    /**
+     * @param in
+     * @param counter
+     *            The counter that read bytes are added to, for example
+     *            {@link bt.remote.socket.metrics.ConnectionMetrics#addBytesIn(long)}.
+     */
+    public CountingInputStream(InputStream in, LongConsumer counter)
+    {
+        super(in);
+        this.counter = counter;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        int b = this.in.read();
+
+        if (b != -1)
+        {
+            this.counter.accept(1);
+        }
+
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        int bytes = this.in.read(b, off, len);
+
+        if (bytes > 0)
+        {
+            this.counter.accept(bytes);
+        }
+
+        return bytes;
+    }
+}
@@ -0,0 +1,43 @@
+package bt.remote.socket.data;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * An output stream that reports the number of written bytes to a counter.
+ *
+ * @author &#8904
+ */
+public class CountingOutputStream extends FilterOutputStream
+{
+    /** The counter that written bytes are added to. */
+    protected LongConsumer counter;
+
+    /**
+     * @param out
+     * @param counter
+     *            The counter that written bytes are added to, for example
+     *            {@link bt.remote.socket.metrics.ConnectionMetrics#addBytesOut(long)}.
+     */
+    public CountingOutputStream(OutputStream out, LongConsumer counter)
+    {
+        super(out);
+        this.counter = counter;
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        this.out.write(b);
+        this.counter.accept(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        this.out.write(b, off, len);
+        this.counter.accept(len);
+    }
+}
@@ -0,0 +1,189 @@
+package bt.remote.socket.data;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A {@link RawDataReader} and {@link BufferFrameDecoder} for frames that are terminated by a delimiter, for example line based text protocols. The
+ * delimiter is not part of the returned frame.
+ *
+ * <p>
+ * Bytes are read in chunks into a buffer that grows up to the maximum frame length and is reused for all frames.
+ * Bytes received after a delimiter are kept for the next call, so instances must not be shared between clients.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class DelimiterFrameReader implements RawDataReader, BufferFrameDecoder
+{
+    /** The bytes that terminate a frame. */
+    protected final byte[] delimiter;
+
+    /** The largest accepted frame length, excluding the delimiter. */
+    protected final int maxFrameLength;
+
+    /** Holds received bytes that have not been returned yet. */
+    private byte[] buffer;
+
+    /** The index of the first byte of the current frame. */
+    private int start;
+
+    /** The index after the last received byte. */
+    private int end;
+
+    /** The index up to which the current frame has already been searched for the delimiter. */
+    private int scanned;
+
+    /**
+     * Creates a reader for frames terminated by a line feed.
+     *
+     * @return
+     */
+    public static DelimiterFrameReader lines()
+    {
+        return new DelimiterFrameReader("\n".getBytes(StandardCharsets.US_ASCII), 8192);
+    }
+
+    /**
+     * Creates a new reader.
+     *
+     * @param delimiter
+     *            The bytes that terminate a frame.
+     * @param maxFrameLength
+     *            The largest accepted frame length. Longer frames cause a {@link StreamCorruptedException}.
+     */
+    public DelimiterFrameReader(byte[] delimiter, int maxFrameLength)
+    {
+        if (delimiter.length == 0)
+        {
+            throw new IllegalArgumentException("delimiter must not be empty");
+        }
+
+        this.delimiter = delimiter.clone();
+        this.maxFrameLength = maxFrameLength;
+        this.buffer = new byte[Math.min(4096, maxFrameLength + delimiter.length)];
+    }
+
+    @Override
+    public byte[] read(DataInputStream in) throws IOException
+    {
+        while (true)
+        {
+            int index = indexOfDelimiter();
+
+            if (index != -1)
+            {
+                byte[] frame = Arrays.copyOfRange(this.buffer, this.start, index);
+                this.start = index + this.delimiter.length;
+                this.scanned = this.start;
+                return frame;
+            }
+
+            if (this.end - this.start > this.maxFrameLength + this.delimiter.length)
+            {
+                throw new StreamCorruptedException("Frame exceeds " + this.maxFrameLength + " bytes");
+            }
+
+            makeRoom();
+            int bytes = in.read(this.buffer, this.end, this.buffer.length - this.end);
+
+            if (bytes == -1)
+            {
+                throw new EOFException("Reached end of stream");
+            }
+
+            this.end += bytes;
+        }
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer buffer) throws IOException
+    {
+        int position = buffer.position();
+        int last = buffer.limit() - this.delimiter.length;
+
+        for (int i = position; i <= last; i ++ )
+        {
+            int j = 0;
+
+            while (j < this.delimiter.length && buffer.get(i + j) == this.delimiter[j])
+            {
+                j ++ ;
+            }
+
+            if (j == this.delimiter.length)
+            {
+                buffer.position(i + this.delimiter.length);
+                return BufferFrameDecoder.slice(buffer, position, i - position);
+            }
+        }
+
+        if (buffer.remaining() > this.maxFrameLength + this.delimiter.length)
+        {
+            throw new StreamCorruptedException("Frame exceeds " + this.maxFrameLength + " bytes");
+        }
+
+        return null;
+    }
+
+    /**
+     * Searches the not yet scanned bytes of the current frame for the delimiter.
+     *
+     * @return The index of the delimiter or -1.
+     */
+    private int indexOfDelimiter()
+    {
+        int last = this.end - this.delimiter.length;
+
+        for (int i = this.scanned; i <= last; i ++ )
+        {
+            int j = 0;
+
+            while (j < this.delimiter.length && this.buffer[i + j] == this.delimiter[j])
+            {
+                j ++ ;
+            }
+
+            if (j == this.delimiter.length)
+            {
+                return i;
+            }
+        }
+
+        // a delimiter might start within the last bytes, so they are searched again once more data arrived
+        this.scanned = Math.max(this.start, last + 1);
+        return -1;
+    }
+
+    /**
+     * Moves the current frame to the front of the buffer or grows the buffer if it is already full.
+     */
+    private void makeRoom()
+    {
+        if (this.end < this.buffer.length)
+        {
+            return;
+        }
+
+        int length = this.end - this.start;
+
+        if (this.start > 0)
+        {
+            System.arraycopy(this.buffer, this.start, this.buffer, 0, length);
+        }
+        else
+        {
+            int limit = this.maxFrameLength + this.delimiter.length + 1;
+            this.buffer = Arrays.copyOf(this.buffer, Math.min(limit, this.buffer.length * 2));
+        }
+
+        this.scanned -= this.start;
+        this.start = 0;
+        this.end = length;
+    }
+}
@@ -0,0 +1,144 @@
+package bt.remote.socket.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import bt.remote.socket.metrics.MessageType;
+
+/**
+ * A message that is encoded once and then written to any number of connections, for example by
+ * {@link bt.remote.socket.Server#broadcast(Object) Server.broadcast}.
+ *
+ * <p>
+ * Each encoding is created on first use and shared by all connections afterwards. The returned arrays and buffers
+ * must not be modified.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class EncodedMessage
+{
+    /** The size of the header that every new {@link ObjectOutputStream} writes. */
+    private static final int STREAM_HEADER_LENGTH = 4;
+
+    /** The message that is encoded. */
+    protected final Object message;
+
+    /** The codec that {@link #frame} has been encoded with. */
+    private FrameCodec codec;
+
+    /** The frame encoded by {@link #codec}, not including the length prefix. */
+    private byte[] frame;
+
+    /** The length prefixed {@link #frame}. */
+    private ByteBuffer frameBuffer;
+
+    /** The object stream encoding of the message, not including the stream header. */
+    private byte[] streamEncoding;
+
+    public EncodedMessage(Object message)
+    {
+        this.message = message;
+    }
+
+    /**
+     * Gets the frame of the message. The frame is cached for the codec that was given on the first call, other codecs
+     * encode the message again.
+     *
+     * @param codec
+     * @return The encoded frame, not including the length prefix.
+     * @throws IOException
+     */
+    public synchronized byte[] getFrame(FrameCodec codec) throws IOException
+    {
+        if (this.codec == null)
+        {
+            this.frame = codec.encode(this.message);
+            this.codec = codec;
+        }
+        else if (this.codec != codec)
+        {
+            return codec.encode(this.message);
+        }
+
+        return this.frame;
+    }
+
+    /**
+     * Gets the length prefixed frame of the message as read only buffer. Every call returns a new view with its own
+     * position, so that every connection can write it independently.
+     *
+     * @param codec
+     * @return
+     * @throws IOException
+     */
+    public synchronized ByteBuffer getFrameBuffer(FrameCodec codec) throws IOException
+    {
+        if (this.codec != null && this.codec != codec)
+        {
+            return toFrameBuffer(codec.encode(this.message));
+        }
+
+        if (this.frameBuffer == null)
+        {
+            this.frameBuffer = toFrameBuffer(getFrame(codec));
+        }
+
+        return this.frameBuffer.duplicate();
+    }
+
+    private static ByteBuffer toFrameBuffer(byte[] frame)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(frame.length + 4);
+        buffer.putInt(frame.length);
+        buffer.put(frame);
+        buffer.flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Gets the message serialized by a fresh {@link ObjectOutputStream}, without the stream header.
+     *
+     * <p>
+     * The bytes only assign handles starting from the initial handle, so they can only be appended to an object stream
+     * whose handle tables have just been {@link ObjectOutputStream#reset() reset}, and the stream has to be reset again
+     * afterwards because it does not know about the handles the receiver assigned while reading them.
+     * </p>
+     *
+     * @return
+     * @throws IOException
+     */
+    public synchronized byte[] getStreamEncoding() throws IOException
+    {
+        if (this.streamEncoding == null)
+        {
+            var bytes = new ByteArrayOutputStream();
+
+            try (var out = new ObjectOutputStream(bytes))
+            {
+                out.writeObject(this.message);
+            }
+
+            byte[] encoded = bytes.toByteArray();
+            this.streamEncoding = Arrays.copyOfRange(encoded, STREAM_HEADER_LENGTH, encoded.length);
+        }
+
+        return this.streamEncoding;
+    }
+
+    public Object getMessage()
+    {
+        return this.message;
+    }
+
+    /**
+     * @return The type of the message for {@link bt.remote.socket.metrics.ConnectionMetrics metrics}.
+     */
+    public MessageType getType()
+    {
+        return MessageType.of(this.message);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package bt.remote.socket.data;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link RawDataReader} and {@link BufferFrameDecoder} that splits the incoming bytes into frames of a fixed length.
+ *
+ * @author &#8904
+ */
+public class FixedLengthFrameReader implements RawDataReader, BufferFrameDecoder
+{
+    /** The length of every frame. */
+    protected final int frameLength;
+
+    /**
+     * Creates a new reader.
+     *
+     * @param frameLength
+     *            The length of every frame.
+     */
+    public FixedLengthFrameReader(int frameLength)
+    {
+        if (frameLength <= 0)
+        {
+            throw new IllegalArgumentException("frameLength must be positive but was " + frameLength);
+        }
+
+        this.frameLength = frameLength;
+    }
+
+    @Override
+    public byte[] read(DataInputStream in) throws IOException
+    {
+        byte[] frame = new byte[this.frameLength];
+        in.readFully(frame);
+        return frame;
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer buffer)
+    {
+        if (buffer.remaining() < this.frameLength)
+        {
+            return null;
+        }
+
+        int position = buffer.position();
+        buffer.position(position + this.frameLength);
+        return BufferFrameDecoder.slice(buffer, position, this.frameLength);
+    }
+}
@@ -0,0 +1,52 @@
+package bt.remote.socket.data;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that can stop flushes from reaching the underlying stream. This allows draining the internal
+ * buffer of a stream on top, such as an {@link java.io.ObjectOutputStream}, without pushing the data to the socket.
+ *
+ * @author &#8904
+ */
+public class FlushSuppressingOutputStream extends FilterOutputStream
+{
+    /** Indicates whether flushes are currently ignored. */
+    protected boolean suppressed;
+
+    public FlushSuppressingOutputStream(OutputStream out)
+    {
+        super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        this.out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        if (!this.suppressed)
+        {
+            this.out.flush();
+        }
+    }
+
+    /**
+     * Sets whether flushes are ignored instead of being passed on to the underlying stream.
+     *
+     * @param suppressed
+     */
+    public void setSuppressed(boolean suppressed)
+    {
+        this.suppressed = suppressed;
+    }
+
+    public boolean isSuppressed()
+    {
+        return this.suppressed;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package bt.remote.socket.data;
+
+import java.io.IOException;
+
+/**
+ * Encodes single objects into self contained frames and decodes them again.
+ *
+ * <p>
+ * Unlike a continuous {@link java.io.ObjectOutputStream} a frame does not depend on any previously sent data, which
+ * allows the receiving side to decode it as soon as all of its bytes have arrived. On the wire every frame is preceded
+ * by its length as a 4 byte big endian int.
+ * </p>
+ *
+ * @author &#8904
+ */
+public interface FrameCodec
+{
+    /** The default maximum length of a single frame in bytes. */
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * Encodes the given object into a frame.
+     *
+     * @param obj
+     * @return The encoded bytes, not including the length prefix.
+     * @throws IOException
+     */
+    public byte[] encode(Object obj) throws IOException;
+
+    /**
+     * Decodes the frame stored in the given array range. The array may be a pooled buffer that is reused once this
+     * method returns, so the decoded object must not reference it.
+     *
+     * @param frame
+     * @param offset
+     * @param length
+     * @return The decoded object.
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public Object decode(byte[] frame, int offset, int length) throws IOException, ClassNotFoundException;
+}
@@ -0,0 +1,125 @@
+package bt.remote.socket.data;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link RawDataReader} and {@link BufferFrameDecoder} for frames that are prefixed with their length. The length
+ * field is not part of the returned frame.
+ *
+ * <p>
+ * Length fields of 1 and 2 bytes are read as unsigned values, 4 byte fields must not be negative.
+ * </p>
+ *
+ * <p>
+ * Instances keep state between reads and must not be shared between clients.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class LengthFieldFrameReader implements RawDataReader, BufferFrameDecoder
+{
+    /** The number of bytes of the length field. */
+    protected final int fieldLength;
+
+    /** The byte order of the length field. */
+    protected final ByteOrder order;
+
+    /** The largest accepted frame length. */
+    protected final int maxFrameLength;
+
+    /** Reused buffer for the length field. */
+    private final byte[] header;
+
+    /**
+     * Creates a reader for big endian length fields of the given size.
+     *
+     * @param fieldLength
+     *            The number of bytes of the length field. Either 1, 2 or 4.
+     */
+    public LengthFieldFrameReader(int fieldLength)
+    {
+        this(fieldLength, ByteOrder.BIG_ENDIAN, FrameCodec.DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * Creates a new reader.
+     *
+     * @param fieldLength
+     *            The number of bytes of the length field. Either 1, 2 or 4.
+     * @param order
+     *            The byte order of the length field.
+     * @param maxFrameLength
+     *            The largest accepted frame length. Longer frames cause a {@link StreamCorruptedException}.
+     */
+    public LengthFieldFrameReader(int fieldLength, ByteOrder order, int maxFrameLength)
+    {
+        if (fieldLength != 1 && fieldLength != 2 && fieldLength != 4)
+        {
+            throw new IllegalArgumentException("fieldLength must be 1, 2 or 4 but was " + fieldLength);
+        }
+
+        this.fieldLength = fieldLength;
+        this.order = order;
+        this.maxFrameLength = maxFrameLength;
+        this.header = new byte[fieldLength];
+    }
+
+    @Override
+    public byte[] read(DataInputStream in) throws IOException
+    {
+        in.readFully(this.header);
+        int length = 0;
+
+        for (int i = 0; i < this.fieldLength; i ++ )
+        {
+            int index = this.order == ByteOrder.BIG_ENDIAN ? i : this.fieldLength - 1 - i;
+            length = (length << 8) | (this.header[index] & 0xFF);
+        }
+
+        checkLength(length);
+
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer buffer) throws IOException
+    {
+        if (buffer.remaining() < this.fieldLength)
+        {
+            return null;
+        }
+
+        int position = buffer.position();
+        int length = 0;
+
+        for (int i = 0; i < this.fieldLength; i ++ )
+        {
+            int index = this.order == ByteOrder.BIG_ENDIAN ? i : this.fieldLength - 1 - i;
+            length = (length << 8) | (buffer.get(position + index) & 0xFF);
+        }
+
+        checkLength(length);
+
+        if (buffer.remaining() < this.fieldLength + length)
+        {
+            return null;
+        }
+
+        buffer.position(position + this.fieldLength + length);
+        return BufferFrameDecoder.slice(buffer, position + this.fieldLength, length);
+    }
+
+    private void checkLength(int length) throws StreamCorruptedException
+    {
+        if (length < 0 || length > this.maxFrameLength)
+        {
+            throw new StreamCorruptedException("Invalid frame length " + length);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package bt.remote.socket.data;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Encodes and decodes the payload of a frame produced by a {@link BinaryFrameCodec}.
+ *
+ * @author &#8904
+ */
+public interface PayloadCodec
+{
+    /**
+     * Writes the given payload to the given stream.
+     *
+     * @param payload
+     *            The payload to encode, may be null.
+     * @param out
+     * @throws IOException
+     */
+    public void encode(Object payload, DataOutputStream out) throws IOException;
+
+    /**
+     * Decodes the payload stored in the given array range.
+     *
+     * @param data
+     * @param offset
+     * @param length
+     * @return The decoded payload.
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public Object decode(byte[] data, int offset, int length) throws IOException, ClassNotFoundException;
+}
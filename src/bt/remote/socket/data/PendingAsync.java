@@ -0,0 +1,90 @@
+package bt.remote.socket.data;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import bt.async.Async;
+import bt.remote.socket.exc.WrappedException;
+
+/**
+ * An {@link Async} that is completed through a {@link PendingRequest} of the sending client instead of the global
+ * {@link bt.async.AsyncManager}.
+ *
+ * @param <T>
+ *            The type of the expected response data.
+ * @author &#8904
+ */
+public class PendingAsync<T> extends Async<T>
+{
+    /** The request whose response this instance waits for. */
+    private final PendingRequest<T> request;
+
+    /**
+     * @param id
+     *            The id of the sent data.
+     * @param request
+     *            The request whose response this instance waits for.
+     */
+    public PendingAsync(String id, PendingRequest<T> request)
+    {
+        super(id);
+        this.request = request;
+    }
+
+    /**
+     * Waits until the response arrives.
+     *
+     * @return The response data.
+     * @throws WrappedException
+     *             If the request failed, for example because it timed out or the connection was closed.
+     */
+    @Override
+    public T get()
+    {
+        try
+        {
+            return this.request.getFuture().get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new WrappedException(new IOException("Interrupted while waiting for a response", e));
+        }
+        catch (ExecutionException e)
+        {
+            throw new WrappedException(e.getCause() instanceof Exception ? (Exception)e.getCause() : e);
+        }
+    }
+
+    /**
+     * Waits for the response for at most the given time.
+     *
+     * @param timeout
+     *            The maximum time to wait in milliseconds.
+     * @return The response data.
+     * @throws WrappedException
+     *             With a {@link TimeoutException} if no response arrived in time, or the reason why the request
+     *             failed.
+     */
+    @Override
+    public T get(long timeout)
+    {
+        try
+        {
+            return this.request.get(timeout);
+        }
+        catch (TimeoutException | IOException e)
+        {
+            throw new WrappedException(e);
+        }
+    }
+
+    /**
+     * @return The request whose response this instance waits for.
+     */
+    public PendingRequest<T> getRequest()
+    {
+        return this.request;
+    }
+}
\ No newline at end of file
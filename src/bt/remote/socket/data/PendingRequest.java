@@ -0,0 +1,151 @@
+package bt.remote.socket.data;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import bt.async.Data;
+
+/**
+ * A request that has been sent and is waiting for its {@link Response} or {@link Acknowledge}.
+ *
+ * @param <T>
+ *            The type of the expected response data.
+ * @author &#8904
+ */
+public class PendingRequest<T>
+{
+    /** The correlation id of the request. */
+    private final long id;
+
+    /** The {@link System#nanoTime()} after which the request times out, or 0 if it never does. */
+    private final long deadline;
+
+    /** The table that this request is registered in. */
+    private final PendingRequestTable table;
+
+    /** Completed with the response data once it arrives. */
+    private final CompletableFuture<T> future;
+
+    /**
+     * @param id
+     *            The correlation id of the request.
+     * @param deadline
+     *            The {@link System#nanoTime()} after which the request times out, or 0 if it never does.
+     * @param table
+     *            The table that this request is registered in.
+     */
+    public PendingRequest(long id, long deadline, PendingRequestTable table)
+    {
+        this.id = id;
+        this.deadline = deadline;
+        this.table = table;
+        this.future = new CompletableFuture<>();
+    }
+
+    /**
+     * Completes this request with the given response data.
+     *
+     * @param data
+     * @return true if this call completed the request.
+     */
+    public boolean complete(Data<T> data)
+    {
+        return this.future.complete(data.get());
+    }
+
+    /**
+     * Completes this request exceptionally.
+     *
+     * @param t
+     * @return true if this call completed the request.
+     */
+    public boolean fail(Throwable t)
+    {
+        return this.future.completeExceptionally(t);
+    }
+
+    /**
+     * Removes this request from its table and fails it with a {@link CancellationException}.
+     */
+    public void cancel()
+    {
+        this.table.remove(this.id);
+        this.future.cancel(false);
+    }
+
+    /**
+     * Waits for the response data.
+     *
+     * @param timeout
+     *            The maximum time to wait in milliseconds.
+     * @return The response data.
+     * @throws TimeoutException
+     *             If no response arrived in time. The request is removed from its table in that case.
+     * @throws IOException
+     *             If the request failed, for example because the connection was closed.
+     */
+    public T get(long timeout) throws TimeoutException, IOException
+    {
+        try
+        {
+            return this.future.get(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e)
+        {
+            this.table.remove(this.id);
+            throw e;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a response", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+            {
+                throw (IOException)e.getCause();
+            }
+
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Gets the future that is completed with the response data. Completing the future directly does not remove the
+     * request from its table.
+     *
+     * @return
+     */
+    public CompletableFuture<T> getFuture()
+    {
+        return this.future;
+    }
+
+    /**
+     * @return true if this request has been completed in any way.
+     */
+    public boolean isDone()
+    {
+        return this.future.isDone();
+    }
+
+    boolean isExpired(long now)
+    {
+        return this.deadline != 0 && now - this.deadline > 0;
+    }
+
+    public long getId()
+    {
+        return this.id;
+    }
+
+    public long getDeadline()
+    {
+        return this.deadline;
+    }
+}
@@ -0,0 +1,359 @@
+package bt.remote.socket.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A table of {@link PendingRequest pending requests} keyed by their primitive correlation id.
+ *
+ * <p>
+ * The table is split into independently locked stripes, each of which is an open addressing hash table with linear
+ * probing over primitive long keys. Threads only contend if they access the same stripe, and no key is ever boxed or
+ * hashed as a string. Id 0 is reserved and can not be stored.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class PendingRequestTable
+{
+    /** The number of registrations after which expired requests are removed. */
+    private static final int EXPIRE_INTERVAL = 1024;
+
+    private final Stripe[] stripes;
+
+    private final int stripeMask;
+
+    /**
+     * Creates a new table with 16 stripes.
+     */
+    public PendingRequestTable()
+    {
+        this(16);
+    }
+
+    /**
+     * Creates a new table.
+     *
+     * @param stripes
+     *            The number of stripes, rounded up to the next power of two.
+     */
+    public PendingRequestTable(int stripes)
+    {
+        int count = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+
+        for (int i = 0; i < count; i ++ )
+        {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    private static long hash(long id)
+    {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private Stripe stripeOf(long hash)
+    {
+        return this.stripes[(int)(hash >>> 48) & this.stripeMask];
+    }
+
+    /**
+     * Creates and registers a new pending request.
+     *
+     * @param id
+     *            The correlation id, must not be 0.
+     * @param timeout
+     *            The time in milliseconds after which the request expires, or 0 if it never does.
+     * @return
+     */
+    public <T> PendingRequest<T> register(long id, long timeout)
+    {
+        if (id == 0)
+        {
+            throw new IllegalArgumentException("Correlation id 0 is reserved");
+        }
+
+        long deadline = timeout > 0 ? System.nanoTime() + timeout * 1_000_000L : 0;
+        var request = new PendingRequest<T>(id, deadline, this);
+        long hash = hash(id);
+        Stripe stripe = stripeOf(hash);
+        boolean expire;
+
+        synchronized (stripe)
+        {
+            stripe.put(id, hash, request);
+            expire = ++ stripe.registrations % EXPIRE_INTERVAL == 0;
+        }
+
+        if (expire)
+        {
+            expire(stripe, System.nanoTime());
+        }
+
+        return request;
+    }
+
+    /**
+     * Gets the request with the given id without removing it.
+     *
+     * @param id
+     * @return The request or null if there is none.
+     */
+    public PendingRequest get(long id)
+    {
+        if (id == 0)
+        {
+            return null;
+        }
+
+        long hash = hash(id);
+        Stripe stripe = stripeOf(hash);
+
+        synchronized (stripe)
+        {
+            return stripe.get(id, hash);
+        }
+    }
+
+    /**
+     * Removes the request with the given id.
+     *
+     * @param id
+     * @return The removed request or null if there was none.
+     */
+    public PendingRequest remove(long id)
+    {
+        if (id == 0)
+        {
+            return null;
+        }
+
+        long hash = hash(id);
+        Stripe stripe = stripeOf(hash);
+
+        synchronized (stripe)
+        {
+            return stripe.remove(id, hash);
+        }
+    }
+
+    /**
+     * @return The number of registered requests.
+     */
+    public int size()
+    {
+        int size = 0;
+
+        for (Stripe stripe : this.stripes)
+        {
+            synchronized (stripe)
+            {
+                size += stripe.size;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Removes all requests whose deadline has passed and fails them with a {@link TimeoutException}.
+     *
+     * @return The number of removed requests.
+     */
+    public int expire()
+    {
+        long now = System.nanoTime();
+        int removed = 0;
+
+        for (Stripe stripe : this.stripes)
+        {
+            removed += expire(stripe, now);
+        }
+
+        return removed;
+    }
+
+    private int expire(Stripe stripe, long now)
+    {
+        List<PendingRequest> expired = new ArrayList<>();
+
+        synchronized (stripe)
+        {
+            stripe.removeIf(r -> r.isExpired(now), expired);
+        }
+
+        for (var request : expired)
+        {
+            request.fail(new TimeoutException("No response for request " + request.getId()));
+        }
+
+        return expired.size();
+    }
+
+    /**
+     * Removes all requests and fails them with the given exception.
+     *
+     * @param t
+     */
+    public void failAll(Throwable t)
+    {
+        List<PendingRequest> removed = new ArrayList<>();
+
+        for (Stripe stripe : this.stripes)
+        {
+            synchronized (stripe)
+            {
+                stripe.removeIf(r -> true, removed);
+            }
+        }
+
+        for (var request : removed)
+        {
+            request.fail(t);
+        }
+    }
+
+    /**
+     * A single open addressing hash table. All methods need to be called while holding the monitor of the stripe.
+     */
+    private static final class Stripe
+    {
+        long[] keys = new long[16];
+        PendingRequest[] values = new PendingRequest[16];
+        int size;
+        int registrations;
+
+        void put(long id, long hash, PendingRequest request)
+        {
+            if ((this.size + 1) * 2 > this.keys.length)
+            {
+                resize();
+            }
+
+            int mask = this.keys.length - 1;
+            int i = (int)hash & mask;
+
+            while (this.keys[i] != 0 && this.keys[i] != id)
+            {
+                i = (i + 1) & mask;
+            }
+
+            if (this.keys[i] == 0)
+            {
+                this.size ++ ;
+            }
+
+            this.keys[i] = id;
+            this.values[i] = request;
+        }
+
+        PendingRequest get(long id, long hash)
+        {
+            int mask = this.keys.length - 1;
+            int i = (int)hash & mask;
+
+            while (this.keys[i] != 0)
+            {
+                if (this.keys[i] == id)
+                {
+                    return this.values[i];
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            return null;
+        }
+
+        PendingRequest remove(long id, long hash)
+        {
+            int mask = this.keys.length - 1;
+            int i = (int)hash & mask;
+
+            while (this.keys[i] != 0)
+            {
+                if (this.keys[i] == id)
+                {
+                    PendingRequest request = this.values[i];
+                    removeAt(i);
+                    return request;
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            return null;
+        }
+
+        void removeIf(java.util.function.Predicate<PendingRequest> filter, List<PendingRequest> removed)
+        {
+            int i = 0;
+
+            while (i < this.keys.length)
+            {
+                if (this.keys[i] != 0 && filter.test(this.values[i]))
+                {
+                    removed.add(this.values[i]);
+
+                    // removeAt may shift a following entry into this slot, so it has to be checked again
+                    removeAt(i);
+                }
+                else
+                {
+                    i ++ ;
+                }
+            }
+        }
+
+        /**
+         * Removes the entry at the given slot and shifts following entries of the same probe sequence back, so that
+         * no tombstones are needed.
+         */
+        private void removeAt(int slot)
+        {
+            int mask = this.keys.length - 1;
+            int hole = slot;
+            int i = (slot + 1) & mask;
+
+            while (this.keys[i] != 0)
+            {
+                int home = (int)hash(this.keys[i]) & mask;
+
+                // move the entry into the hole if the hole lies between its home slot and its current slot
+                if (((i - home) & mask) >= ((i - hole) & mask))
+                {
+                    this.keys[hole] = this.keys[i];
+                    this.values[hole] = this.values[i];
+                    hole = i;
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            this.keys[hole] = 0;
+            this.values[hole] = null;
+            this.size -- ;
+        }
+
+        private void resize()
+        {
+            long[] oldKeys = this.keys;
+            PendingRequest[] oldValues = this.values;
+            this.keys = new long[oldKeys.length * 2];
+            this.values = new PendingRequest[oldKeys.length * 2];
+            this.size = 0;
+
+            for (int i = 0; i < oldKeys.length; i ++ )
+            {
+                if (oldKeys[i] != 0)
+                {
+                    put(oldKeys[i], hash(oldKeys[i]), oldValues[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package bt.remote.socket.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link PayloadCodec} that writes null, strings, byte arrays and boxed primitives as a single tag byte followed by
+ * their raw value, without any reflection. All other payloads are handed to a fallback codec.
+ *
+ * @author &#8904
+ */
+public class PrimitivePayloadCodec implements PayloadCodec
+{
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte SHORT = 6;
+    private static final byte BYTE = 7;
+    private static final byte BOOLEAN = 8;
+    private static final byte CHARACTER = 9;
+    private static final byte BYTES = 10;
+    private static final byte FALLBACK = 127;
+
+    /** The codec used for payloads that are not supported by this codec. */
+    protected PayloadCodec fallback;
+
+    /**
+     * Creates a new instance that uses a {@link SerializationPayloadCodec} for unsupported payloads.
+     */
+    public PrimitivePayloadCodec()
+    {
+        this(new SerializationPayloadCodec());
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param fallback
+     *            The codec used for payloads that are not supported by this codec.
+     */
+    public PrimitivePayloadCodec(PayloadCodec fallback)
+    {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void encode(Object payload, DataOutputStream out) throws IOException
+    {
+        if (payload == null)
+        {
+            out.writeByte(NULL);
+        }
+        else if (payload instanceof String)
+        {
+            out.writeByte(STRING);
+            out.write(((String)payload).getBytes(StandardCharsets.UTF_8));
+        }
+        else if (payload instanceof Integer)
+        {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer)payload);
+        }
+        else if (payload instanceof Long)
+        {
+            out.writeByte(LONG);
+            out.writeLong((Long)payload);
+        }
+        else if (payload instanceof Double)
+        {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double)payload);
+        }
+        else if (payload instanceof Float)
+        {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float)payload);
+        }
+        else if (payload instanceof Short)
+        {
+            out.writeByte(SHORT);
+            out.writeShort((Short)payload);
+        }
+        else if (payload instanceof Byte)
+        {
+            out.writeByte(BYTE);
+            out.writeByte((Byte)payload);
+        }
+        else if (payload instanceof Boolean)
+        {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean)payload);
+        }
+        else if (payload instanceof Character)
+        {
+            out.writeByte(CHARACTER);
+            out.writeChar((Character)payload);
+        }
+        else if (payload instanceof byte[])
+        {
+            out.writeByte(BYTES);
+            out.write((byte[])payload);
+        }
+        else
+        {
+            out.writeByte(FALLBACK);
+            this.fallback.encode(payload, out);
+        }
+    }
+
+    @Override
+    public Object decode(byte[] data, int offset, int length) throws IOException, ClassNotFoundException
+    {
+        if (length < 1)
+        {
+            throw new StreamCorruptedException("Empty payload");
+        }
+
+        byte tag = data[offset];
+        var in = new DataInputStream(new ByteArrayInputStream(data, offset + 1, length - 1));
+
+        switch (tag)
+        {
+            case NULL:
+                return null;
+            case STRING:
+                return new String(data, offset + 1, length - 1, StandardCharsets.UTF_8);
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case SHORT:
+                return in.readShort();
+            case BYTE:
+                return in.readByte();
+            case BOOLEAN:
+                return in.readBoolean();
+            case CHARACTER:
+                return in.readChar();
+            case BYTES:
+                byte[] bytes = new byte[length - 1];
+                System.arraycopy(data, offset + 1, bytes, 0, bytes.length);
+                return bytes;
+            case FALLBACK:
+                return this.fallback.decode(data, offset + 1, length - 1);
+            default:
+                throw new StreamCorruptedException("Unknown payload tag " + tag);
+        }
+    }
+}
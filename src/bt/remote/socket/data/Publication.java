@@ -0,0 +1,50 @@
+package bt.remote.socket.data;
+
+import bt.async.Data;
+
+/**
+ * A message that has been published to a topic and is delivered to every connection that {@link Subscribe
+ * subscribed} to it.
+ *
+ * @author &#8904
+ */
+public class Publication<T> extends Message<T>
+{
+    /** The topic that this message has been published to. */
+    protected String topic;
+
+    /**
+     * @param topic
+     * @param payload
+     */
+    public Publication(String topic, T payload)
+    {
+        this(topic, new Data(payload == null ? Object.class : payload.getClass(), payload, ""));
+    }
+
+    /**
+     * @param topic
+     * @param data
+     */
+    public Publication(String topic, Data<T> data)
+    {
+        super(data);
+        this.topic = topic;
+    }
+
+    /**
+     * @return The topic that this message has been published to.
+     */
+    public String getTopic()
+    {
+        return this.topic;
+    }
+
+    /**
+     * @return The published object.
+     */
+    public T getPayload()
+    {
+        return this.data.get();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+package bt.remote.socket.data;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A bounded buffer for outgoing messages of a client that is currently reconnecting. Messages that are older than
+ * the maximum delay once the connection is back are not sent anymore.
+ *
+ * @author &#8904
+ */
+public class ReconnectBuffer
+{
+    /** The buffered messages in the order they were sent. */
+    protected final ArrayDeque<Entry> entries;
+
+    /** The maximum number of buffered messages. */
+    protected final int capacity;
+
+    /** The maximum time in nanoseconds that a message is held. */
+    protected final long maxDelayNanos;
+
+    /**
+     * @param capacity
+     *            The maximum number of buffered messages.
+     * @param maxDelay
+     *            The maximum time in milliseconds that a message is held before it is discarded.
+     */
+    public ReconnectBuffer(int capacity, long maxDelay)
+    {
+        this.entries = new ArrayDeque<>(Math.min(capacity, 1024));
+        this.capacity = capacity;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelay);
+    }
+
+    /**
+     * Adds the given message at the end of the buffer.
+     *
+     * @param message
+     * @return false if the buffer is full.
+     */
+    public synchronized boolean offer(Object message)
+    {
+        if (this.entries.size() >= this.capacity)
+        {
+            return false;
+        }
+
+        this.entries.add(new Entry(message, System.nanoTime() + this.maxDelayNanos));
+        return true;
+    }
+
+    /**
+     * Removes and returns the oldest message that has not expired yet.
+     *
+     * @param expired
+     *            Receives every expired message that is removed along the way.
+     * @return The message or null if the buffer is empty.
+     */
+    public synchronized Object poll(Consumer<Object> expired)
+    {
+        long now = System.nanoTime();
+        Entry entry;
+
+        while ((entry = this.entries.poll()) != null)
+        {
+            if (now - entry.deadline < 0)
+            {
+                return entry.message;
+            }
+
+            expired.accept(entry.message);
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes all messages that have expired.
+     *
+     * @param expired
+     *            Receives every removed message.
+     */
+    public synchronized void expire(Consumer<Object> expired)
+    {
+        long now = System.nanoTime();
+
+        while (!this.entries.isEmpty() && now - this.entries.peek().deadline >= 0)
+        {
+            expired.accept(this.entries.poll().message);
+        }
+    }
+
+    /**
+     * @return The maximum time in nanoseconds that a message is held.
+     */
+    public long getMaxDelayNanos()
+    {
+        return this.maxDelayNanos;
+    }
+
+    /**
+     * Removes all messages.
+     *
+     * @param discarded
+     *            Receives every removed message.
+     */
+    public synchronized void clear(Consumer<Object> discarded)
+    {
+        Entry entry;
+
+        while ((entry = this.entries.poll()) != null)
+        {
+            discarded.accept(entry.message);
+        }
+    }
+
+    public synchronized int size()
+    {
+        return this.entries.size();
+    }
+
+    public synchronized boolean isEmpty()
+    {
+        return this.entries.isEmpty();
+    }
+
+    public int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    private static final class Entry
+    {
+        final Object message;
+        final long deadline;
+
+        Entry(Object message, long deadline)
+        {
+            this.message = message;
+            this.deadline = deadline;
+        }
+    }
+}
\ No newline at end of file
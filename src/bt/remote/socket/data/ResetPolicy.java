@@ -0,0 +1,101 @@
+package bt.remote.socket.data;
+
+/**
+ * Decides when the {@link java.io.ObjectOutputStream} of a client is {@link java.io.ObjectOutputStream#reset()
+ * reset}.
+ *
+ * <p>
+ * An object stream keeps a reference to every object it has written, and the receiving stream keeps every object it
+ * has read, so that repeated objects can be sent as back references. On long lived connections this grows without
+ * bound. Resetting clears both tables at the cost of sending class descriptors again afterwards.
+ * </p>
+ *
+ * <p>
+ * A reset happens as soon as either limit is reached. A limit of 0 or less disables it.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class ResetPolicy
+{
+    /** The policy used by clients unless configured otherwise. Resets every 1000 messages or every megabyte. */
+    public static final ResetPolicy DEFAULT = new ResetPolicy(1000, 1024 * 1024);
+
+    /** The number of messages after which the stream is reset. */
+    private final int maxMessages;
+
+    /** The number of bytes after which the stream is reset. */
+    private final long maxBytes;
+
+    /**
+     * Creates a new policy.
+     *
+     * @param maxMessages
+     *            The number of messages after which the stream is reset. 0 to ignore the message count.
+     * @param maxBytes
+     *            The number of written bytes after which the stream is reset. 0 to ignore the byte count.
+     */
+    public ResetPolicy(int maxMessages, long maxBytes)
+    {
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return A policy that never resets the stream. This was the behavior of earlier versions.
+     */
+    public static ResetPolicy never()
+    {
+        return new ResetPolicy(0, 0);
+    }
+
+    /**
+     * @return A policy that resets the stream after every message. No object is ever retained by the streams.
+     */
+    public static ResetPolicy perMessage()
+    {
+        return new ResetPolicy(1, 0);
+    }
+
+    /**
+     * @param messages
+     * @return A policy that resets the stream after the given number of messages.
+     */
+    public static ResetPolicy everyMessages(int messages)
+    {
+        return new ResetPolicy(messages, 0);
+    }
+
+    /**
+     * @param bytes
+     * @return A policy that resets the stream after the given number of written bytes.
+     */
+    public static ResetPolicy everyBytes(long bytes)
+    {
+        return new ResetPolicy(0, bytes);
+    }
+
+    /**
+     * Checks whether the stream should be reset.
+     *
+     * @param messages
+     *            The number of messages written since the last reset.
+     * @param bytes
+     *            The number of bytes written since the last reset.
+     * @return
+     */
+    public boolean shouldReset(int messages, long bytes)
+    {
+        return (this.maxMessages > 0 && messages >= this.maxMessages) || (this.maxBytes > 0 && bytes >= this.maxBytes);
+    }
+
+    public int getMaxMessages()
+    {
+        return this.maxMessages;
+    }
+
+    public long getMaxBytes()
+    {
+        return this.maxBytes;
+    }
+}
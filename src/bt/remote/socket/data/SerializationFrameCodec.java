@@ -0,0 +1,38 @@
+package bt.remote.socket.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * A {@link FrameCodec} that uses java serialization for every frame. Each frame contains its own stream header, so
+ * no state is shared between frames.
+ *
+ * @author &#8904
+ */
+public class SerializationFrameCodec implements FrameCodec
+{
+    @Override
+    public byte[] encode(Object obj) throws IOException
+    {
+        var bytes = new ByteArrayOutputStream(256);
+
+        try (var out = new ObjectOutputStream(bytes))
+        {
+            out.writeObject(obj);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] frame, int offset, int length) throws IOException, ClassNotFoundException
+    {
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(frame, offset, length)))
+        {
+            return in.readObject();
+        }
+    }
+}
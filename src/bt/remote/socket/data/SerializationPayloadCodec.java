@@ -0,0 +1,33 @@
+package bt.remote.socket.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * A {@link PayloadCodec} that uses java serialization. This supports any serializable payload at the cost of class
+ * descriptors and reflection for every frame.
+ *
+ * @author &#8904
+ */
+public class SerializationPayloadCodec implements PayloadCodec
+{
+    @Override
+    public void encode(Object payload, DataOutputStream out) throws IOException
+    {
+        var objOut = new ObjectOutputStream(out);
+        objOut.writeObject(payload);
+        objOut.flush();
+    }
+
+    @Override
+    public Object decode(byte[] data, int offset, int length) throws IOException, ClassNotFoundException
+    {
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(data, offset, length)))
+        {
+            return in.readObject();
+        }
+    }
+}
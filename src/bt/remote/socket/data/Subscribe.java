@@ -0,0 +1,35 @@
+package bt.remote.socket.data;
+
+import bt.async.Data;
+
+/**
+ * Asks the server to send all {@link Publication publications} of a topic to this connection. The data of this message is the name of the topic.
+ *
+ * @author &#8904
+ */
+public class Subscribe extends Message<String>
+{
+    /**
+     * @param topic
+     */
+    public Subscribe(String topic)
+    {
+        this(new Data<>(String.class, topic, ""));
+    }
+
+    /**
+     * @param data
+     */
+    public Subscribe(Data<String> data)
+    {
+        super(data);
+    }
+
+    /**
+     * @return The name of the topic.
+     */
+    public String getTopic()
+    {
+        return this.data.get();
+    }
+}
\ No newline at end of file
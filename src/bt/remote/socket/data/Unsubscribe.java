@@ -0,0 +1,35 @@
+package bt.remote.socket.data;
+
+import bt.async.Data;
+
+/**
+ * Asks the server to stop sending {@link Publication publications} of a topic to this connection. The data of this message is the name of the topic.
+ *
+ * @author &#8904
+ */
+public class Unsubscribe extends Message<String>
+{
+    /**
+     * @param topic
+     */
+    public Unsubscribe(String topic)
+    {
+        this(new Data<>(String.class, topic, ""));
+    }
+
+    /**
+     * @param data
+     */
+    public Unsubscribe(Data<String> data)
+    {
+        super(data);
+    }
+
+    /**
+     * @return The name of the topic.
+     */
+    public String getTopic()
+    {
+        return this.data.get();
+    }
+}
\ No newline at end of file
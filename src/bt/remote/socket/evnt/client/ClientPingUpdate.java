@@ -5,10 +5,25 @@ import bt.remote.socket.Client;
 public class ClientPingUpdate extends ClientEvent
 {
     private long ping;
+    private long rttNanos;
 
     public ClientPingUpdate(Client client, long ping)
+    {
+        this(client, ping, ping * 1_000_000);
+    }
+
+    /**
+     * @param client
+     * @param ping
+     *            The round trip time in milliseconds.
+     * @param rttNanos
+     *            The round trip time in nanoseconds.
+     */
+    public ClientPingUpdate(Client client, long ping, long rttNanos)
     {
         super(client);
+        this.ping = ping;
+        this.rttNanos = rttNanos;
     }
 
     /**
@@ -18,4 +33,12 @@ public class ClientPingUpdate extends ClientEvent
     {
         return this.ping;
     }
+
+    /**
+     * @return The round trip time in nanoseconds.
+     */
+    public long getRttNanos()
+    {
+        return this.rttNanos;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package bt.remote.socket.exc;
+
+import java.net.SocketException;
+
+/**
+ * Thrown by a reading thread if the inbound queue of its connection is full and the connection uses
+ * {@link bt.remote.socket.thread.OverflowPolicy#FAIL}. The connection is closed as a result.
+ *
+ * @author &#8904
+ */
+public class InboundQueueFullException extends SocketException
+{
+    public InboundQueueFullException(String msg)
+    {
+        super(msg);
+    }
+}
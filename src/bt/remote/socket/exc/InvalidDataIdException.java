@@ -0,0 +1,18 @@
+package bt.remote.socket.exc;
+
+import java.io.IOException;
+
+/**
+ * Thrown if a message can not be sent because its data id is not supported by the codec of the connection, for
+ * example a non numeric id with a {@link bt.remote.socket.data.BinaryFrameCodec BinaryFrameCodec}. The connection
+ * itself is not affected.
+ *
+ * @author &#8904
+ */
+public class InvalidDataIdException extends IOException
+{
+    public InvalidDataIdException(String msg, Throwable cause)
+    {
+        super(msg, cause);
+    }
+}
\ No newline at end of file
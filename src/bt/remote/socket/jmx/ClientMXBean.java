@@ -0,0 +1,63 @@
+package bt.remote.socket.jmx;
+
+/**
+ * The management interface of an {@link bt.remote.socket.ObjectClient}.
+ *
+ * <p>
+ * Traffic values include previous connections of the client.
+ * </p>
+ *
+ * @author &#8904
+ */
+public interface ClientMXBean
+{
+    public String getHost();
+
+    public int getPort();
+
+    public boolean isConnected();
+
+    /**
+     * @return The round trip time of the last answered keep alive in milliseconds.
+     */
+    public long getPing();
+
+    /**
+     * @return The smoothed keep alive round trip time in microseconds.
+     */
+    public long getSmoothedRttMicros();
+
+    /**
+     * @return The 99th percentile of the recent keep alive round trip times in microseconds.
+     */
+    public long getRttP99Micros();
+
+    public int getPendingRequests();
+
+    public long getReconnects();
+
+    public long getBytesIn();
+
+    public long getBytesOut();
+
+    public long getMessagesIn();
+
+    public long getMessagesOut();
+
+    public long getErrors();
+
+    /**
+     * @return The number of responses that were dropped because no pending request was waiting for them.
+     */
+    public long getUnmatchedResponses();
+
+    public int getInboundQueueDepth();
+
+    public int getOutboundQueueDepth();
+
+    public long getRequestLatencyP50Micros();
+
+    public long getRequestLatencyP99Micros();
+
+    public long getRequestLatencyMaxMicros();
+}
@@ -0,0 +1,134 @@
+package bt.remote.socket.jmx;
+
+import java.util.concurrent.TimeUnit;
+
+import bt.remote.socket.ObjectClient;
+
+/**
+ * Exposes an {@link ObjectClient} through the {@link ClientMXBean} interface.
+ *
+ * @author &#8904
+ */
+public class ClientStats implements ClientMXBean
+{
+    protected final ObjectClient client;
+
+    public ClientStats(ObjectClient client)
+    {
+        this.client = client;
+    }
+
+    @Override
+    public String getHost()
+    {
+        return this.client.getHost();
+    }
+
+    @Override
+    public int getPort()
+    {
+        return this.client.getPort();
+    }
+
+    @Override
+    public boolean isConnected()
+    {
+        return this.client.isConnected();
+    }
+
+    @Override
+    public long getPing()
+    {
+        return this.client.getCurrentPing();
+    }
+
+    @Override
+    public long getSmoothedRttMicros()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(this.client.getRtt().getSmoothed());
+    }
+
+    @Override
+    public long getRttP99Micros()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(this.client.getRtt().getPercentile(99));
+    }
+
+    @Override
+    public int getPendingRequests()
+    {
+        return this.client.getPendingRequestCount();
+    }
+
+    @Override
+    public long getReconnects()
+    {
+        return this.client.getMetrics().getReconnects();
+    }
+
+    @Override
+    public long getBytesIn()
+    {
+        return this.client.getMetrics().getBytesIn();
+    }
+
+    @Override
+    public long getBytesOut()
+    {
+        return this.client.getMetrics().getBytesOut();
+    }
+
+    @Override
+    public long getMessagesIn()
+    {
+        return this.client.getMetrics().getMessagesIn();
+    }
+
+    @Override
+    public long getMessagesOut()
+    {
+        return this.client.getMetrics().getMessagesOut();
+    }
+
+    @Override
+    public long getErrors()
+    {
+        return this.client.getMetrics().getErrors();
+    }
+
+    @Override
+    public long getUnmatchedResponses()
+    {
+        return this.client.getMetrics().getUnmatchedResponses();
+    }
+
+    @Override
+    public int getInboundQueueDepth()
+    {
+        return this.client.getInboundQueueDepth();
+    }
+
+    @Override
+    public int getOutboundQueueDepth()
+    {
+        return this.client.getOutboundQueueSize();
+    }
+
+    @Override
+    public long getRequestLatencyP50Micros()
+    {
+        return ServerStats.percentileMicros(this.client.getMetrics().getRequestLatency(), 50);
+    }
+
+    @Override
+    public long getRequestLatencyP99Micros()
+    {
+        return ServerStats.percentileMicros(this.client.getMetrics().getRequestLatency(), 99);
+    }
+
+    @Override
+    public long getRequestLatencyMaxMicros()
+    {
+        return ServerStats.percentileMicros(this.client.getMetrics().getRequestLatency(), 100);
+    }
+}
@@ -0,0 +1,95 @@
+package bt.remote.socket.jmx;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registers the MBeans of servers and clients with the platform {@link MBeanServer}.
+ *
+ * @author &#8904
+ */
+public final class MBeans
+{
+    /** The JMX domain of all MBeans of this library. */
+    public static final String DOMAIN = "bt.remote";
+
+    /** Source of the ids that keep the names of MBeans unique within the JVM. */
+    private static final AtomicLong IDS = new AtomicLong();
+
+    private MBeans()
+    {
+    }
+
+    /**
+     * Creates the name of an MBean in the {@link #DOMAIN} of this library.
+     *
+     * @param type
+     * @param properties
+     *            Alternating keys and values. Values are quoted.
+     * @return
+     * @throws JMException
+     */
+    public static ObjectName name(String type, String... properties) throws JMException
+    {
+        var name = new StringBuilder(DOMAIN).append(":type=").append(type);
+
+        for (int i = 0; i + 1 < properties.length; i += 2)
+        {
+            name.append(',').append(properties[i]).append('=').append(ObjectName.quote(properties[i + 1]));
+        }
+
+        return new ObjectName(name.toString());
+    }
+
+    /**
+     * @return A new id that is unique within the JVM, to be used as property of an MBean name.
+     */
+    public static long nextId()
+    {
+        return IDS.incrementAndGet();
+    }
+
+    /**
+     * Registers the given MBean. An MBean that is already registered with the same name is never replaced, since it
+     * belongs to another live instance.
+     *
+     * @param mbean
+     * @param name
+     * @throws JMException
+     *             An {@link javax.management.InstanceAlreadyExistsException InstanceAlreadyExistsException} if the
+     *             name is taken.
+     */
+    public static void register(Object mbean, ObjectName name) throws JMException
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(mbean, name);
+    }
+
+    /**
+     * Unregisters the MBean with the given name if it is registered.
+     *
+     * @param name
+     * @throws JMException
+     */
+    public static void unregister(ObjectName name) throws JMException
+    {
+        if (name == null)
+        {
+            return;
+        }
+
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+        catch (InstanceNotFoundException e)
+        {
+            // already unregistered
+        }
+    }
+}
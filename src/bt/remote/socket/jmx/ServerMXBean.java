@@ -0,0 +1,60 @@
+package bt.remote.socket.jmx;
+
+/**
+ * The management interface of a {@link bt.remote.socket.Server}.
+ *
+ * <p>
+ * Traffic values are totals of all connections of the server since it was created, including closed ones.
+ * </p>
+ *
+ * @author &#8904
+ */
+public interface ServerMXBean
+{
+    public String getName();
+
+    public int getPort();
+
+    public boolean isRunning();
+
+    public int getConnectedClients();
+
+    public long getAcceptedConnections();
+
+    /**
+     * @return The number of accepted connections per second, measured between the last two reads of this attribute
+     *         that are at least one second apart.
+     */
+    public double getAcceptRate();
+
+    public long getBytesIn();
+
+    public long getBytesOut();
+
+    public long getMessagesIn();
+
+    public long getMessagesOut();
+
+    public long getErrors();
+
+    public int getInboundQueueDepth();
+
+    public int getOutboundQueueDepth();
+
+    public int getPendingRequests();
+
+    public long getRequestLatencyP50Micros();
+
+    public long getRequestLatencyP99Micros();
+
+    public long getRequestLatencyMaxMicros();
+
+    /**
+     * @return The number of connections closed because they did not complete their handshake in time.
+     */
+    public long getHandshakeTimeouts();
+
+    public long getHandshakeLatencyP50Micros();
+
+    public long getHandshakeLatencyP99Micros();
+}
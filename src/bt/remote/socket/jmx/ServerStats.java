@@ -0,0 +1,186 @@
+package bt.remote.socket.jmx;
+
+import java.util.concurrent.TimeUnit;
+
+import bt.remote.socket.Server;
+import bt.remote.socket.ServerClient;
+import bt.remote.socket.metrics.LatencyHistogram;
+
+/**
+ * Exposes a {@link Server} through the {@link ServerMXBean} interface.
+ *
+ * @author &#8904
+ */
+public class ServerStats implements ServerMXBean
+{
+    protected final Server server;
+
+    private long lastRateTime;
+
+    private long lastRateCount;
+
+    private double acceptRate;
+
+    public ServerStats(Server server)
+    {
+        this.server = server;
+        this.lastRateTime = System.nanoTime();
+    }
+
+    static long percentileMicros(LatencyHistogram histogram, double percentile)
+    {
+        return histogram == null ? 0 : TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(percentile));
+    }
+
+    @Override
+    public String getName()
+    {
+        return this.server.getName();
+    }
+
+    @Override
+    public int getPort()
+    {
+        return this.server.getPort();
+    }
+
+    @Override
+    public boolean isRunning()
+    {
+        return this.server.isRunning();
+    }
+
+    @Override
+    public int getConnectedClients()
+    {
+        return this.server.getClientCount();
+    }
+
+    @Override
+    public long getAcceptedConnections()
+    {
+        return this.server.getAcceptedConnections();
+    }
+
+    @Override
+    public synchronized double getAcceptRate()
+    {
+        long now = System.nanoTime();
+        long elapsed = now - this.lastRateTime;
+
+        if (elapsed >= TimeUnit.SECONDS.toNanos(1))
+        {
+            long count = getAcceptedConnections();
+            this.acceptRate = (count - this.lastRateCount) / (elapsed / 1e9);
+            this.lastRateCount = count;
+            this.lastRateTime = now;
+        }
+
+        return this.acceptRate;
+    }
+
+    @Override
+    public long getBytesIn()
+    {
+        return this.server.getMetrics().getBytesIn();
+    }
+
+    @Override
+    public long getBytesOut()
+    {
+        return this.server.getMetrics().getBytesOut();
+    }
+
+    @Override
+    public long getMessagesIn()
+    {
+        return this.server.getMetrics().getMessagesIn();
+    }
+
+    @Override
+    public long getMessagesOut()
+    {
+        return this.server.getMetrics().getMessagesOut();
+    }
+
+    @Override
+    public long getErrors()
+    {
+        return this.server.getMetrics().getErrors();
+    }
+
+    @Override
+    public int getInboundQueueDepth()
+    {
+        int depth = 0;
+
+        for (ServerClient client : this.server.getClientRegistry())
+        {
+            depth += client.getInboundQueueDepth();
+        }
+
+        return depth;
+    }
+
+    @Override
+    public int getOutboundQueueDepth()
+    {
+        int depth = 0;
+
+        for (ServerClient client : this.server.getClientRegistry())
+        {
+            depth += client.getOutboundQueueSize();
+        }
+
+        return depth;
+    }
+
+    @Override
+    public int getPendingRequests()
+    {
+        int pending = 0;
+
+        for (ServerClient client : this.server.getClientRegistry())
+        {
+            pending += client.getPendingRequestCount();
+        }
+
+        return pending;
+    }
+
+    @Override
+    public long getRequestLatencyP50Micros()
+    {
+        return percentileMicros(this.server.getMetrics().getRequestLatency(), 50);
+    }
+
+    @Override
+    public long getRequestLatencyP99Micros()
+    {
+        return percentileMicros(this.server.getMetrics().getRequestLatency(), 99);
+    }
+
+    @Override
+    public long getRequestLatencyMaxMicros()
+    {
+        return percentileMicros(this.server.getMetrics().getRequestLatency(), 100);
+    }
+
+    @Override
+    public long getHandshakeTimeouts()
+    {
+        return this.server.getMetrics().getHandshakeTimeouts();
+    }
+
+    @Override
+    public long getHandshakeLatencyP50Micros()
+    {
+        return percentileMicros(this.server.getMetrics().getHandshakeLatency(), 50);
+    }
+
+    @Override
+    public long getHandshakeLatencyP99Micros()
+    {
+        return percentileMicros(this.server.getMetrics().getHandshakeLatency(), 99);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,343 @@
+package bt.remote.socket.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a single connection or, if used as parent, of all connections of a server.
+ *
+ * <p>
+ * All counters are {@link LongAdder LongAdders}, so recording never blocks and scales with concurrent writers. Values
+ * recorded into a metrics instance with a parent are recorded into the parent as well. Use {@link #snapshot(int, int,
+ * int)} to read a consistent copy.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class ConnectionMetrics
+{
+    private static final MessageType[] TYPES = MessageType.values();
+
+    /** The metrics that all values are recorded into as well. Null if there is none. */
+    protected final ConnectionMetrics parent;
+
+    protected final LongAdder bytesIn;
+
+    protected final LongAdder bytesOut;
+
+    protected final LongAdder[] messagesIn;
+
+    protected final LongAdder[] messagesOut;
+
+    protected final LongAdder reconnects;
+
+    protected final LongAdder errors;
+
+    /** Responses that did not belong to any pending request. */
+    protected final LongAdder unmatchedResponses;
+
+    /** The round trip times of requests. Created on the first recorded request, since most connections never send any. */
+    protected volatile LatencyHistogram requestLatency;
+
+    protected final LongAdder handshakeTimeouts;
+
+    /** The durations of completed handshakes. Created on the first completed handshake. */
+    protected volatile LatencyHistogram handshakeLatency;
+
+    public ConnectionMetrics()
+    {
+        this(null);
+    }
+
+    /**
+     * @param parent
+     *            The metrics that all values are recorded into as well, for example those of the server a connection
+     *            belongs to.
+     */
+    public ConnectionMetrics(ConnectionMetrics parent)
+    {
+        this.parent = parent;
+        this.bytesIn = new LongAdder();
+        this.bytesOut = new LongAdder();
+        this.reconnects = new LongAdder();
+        this.errors = new LongAdder();
+        this.unmatchedResponses = new LongAdder();
+        this.handshakeTimeouts = new LongAdder();
+        this.messagesIn = new LongAdder[TYPES.length];
+        this.messagesOut = new LongAdder[TYPES.length];
+
+        for (int i = 0; i < TYPES.length; i ++ )
+        {
+            this.messagesIn[i] = new LongAdder();
+            this.messagesOut[i] = new LongAdder();
+        }
+    }
+
+    public void addBytesIn(long bytes)
+    {
+        this.bytesIn.add(bytes);
+
+        if (this.parent != null)
+        {
+            this.parent.addBytesIn(bytes);
+        }
+    }
+
+    public void addBytesOut(long bytes)
+    {
+        this.bytesOut.add(bytes);
+
+        if (this.parent != null)
+        {
+            this.parent.addBytesOut(bytes);
+        }
+    }
+
+    public void messageReceived(MessageType type)
+    {
+        this.messagesIn[type.ordinal()].increment();
+
+        if (this.parent != null)
+        {
+            this.parent.messageReceived(type);
+        }
+    }
+
+    public void messageSent(MessageType type)
+    {
+        this.messagesOut[type.ordinal()].increment();
+
+        if (this.parent != null)
+        {
+            this.parent.messageSent(type);
+        }
+    }
+
+    public void reconnected()
+    {
+        this.reconnects.increment();
+
+        if (this.parent != null)
+        {
+            this.parent.reconnected();
+        }
+    }
+
+    /**
+     * Counts an exception event of the connection.
+     */
+    public void errorOccurred()
+    {
+        this.errors.increment();
+
+        if (this.parent != null)
+        {
+            this.parent.errorOccurred();
+        }
+    }
+
+    /**
+     * Counts a response that was dropped because no pending request was waiting for it, for example because the
+     * request had already timed out.
+     */
+    public void responseUnmatched()
+    {
+        this.unmatchedResponses.increment();
+
+        if (this.parent != null)
+        {
+            this.parent.responseUnmatched();
+        }
+    }
+
+    /**
+     * Records the time between sending a request and receiving its response.
+     *
+     * @param nanos
+     */
+    public void recordRequestLatency(long nanos)
+    {
+        LatencyHistogram histogram = this.requestLatency;
+
+        if (histogram == null)
+        {
+            synchronized (this)
+            {
+                if ((histogram = this.requestLatency) == null)
+                {
+                    this.requestLatency = histogram = new LatencyHistogram();
+                }
+            }
+        }
+
+        histogram.record(nanos);
+
+        if (this.parent != null)
+        {
+            this.parent.recordRequestLatency(nanos);
+        }
+    }
+
+    /**
+     * Records the time that a connection took to complete its handshake.
+     *
+     * @param nanos
+     */
+    public void recordHandshakeLatency(long nanos)
+    {
+        LatencyHistogram histogram = this.handshakeLatency;
+
+        if (histogram == null)
+        {
+            synchronized (this)
+            {
+                if ((histogram = this.handshakeLatency) == null)
+                {
+                    this.handshakeLatency = histogram = new LatencyHistogram();
+                }
+            }
+        }
+
+        histogram.record(nanos);
+
+        if (this.parent != null)
+        {
+            this.parent.recordHandshakeLatency(nanos);
+        }
+    }
+
+    /**
+     * Counts a connection that was closed because it did not complete its handshake in time.
+     */
+    public void handshakeTimedOut()
+    {
+        this.handshakeTimeouts.increment();
+
+        if (this.parent != null)
+        {
+            this.parent.handshakeTimedOut();
+        }
+    }
+
+    public long getBytesIn()
+    {
+        return this.bytesIn.sum();
+    }
+
+    public long getBytesOut()
+    {
+        return this.bytesOut.sum();
+    }
+
+    public long getMessagesIn(MessageType type)
+    {
+        return this.messagesIn[type.ordinal()].sum();
+    }
+
+    public long getMessagesOut(MessageType type)
+    {
+        return this.messagesOut[type.ordinal()].sum();
+    }
+
+    /**
+     * @return The number of received messages of all types.
+     */
+    public long getMessagesIn()
+    {
+        long total = 0;
+
+        for (LongAdder count : this.messagesIn)
+        {
+            total += count.sum();
+        }
+
+        return total;
+    }
+
+    /**
+     * @return The number of sent messages of all types.
+     */
+    public long getMessagesOut()
+    {
+        long total = 0;
+
+        for (LongAdder count : this.messagesOut)
+        {
+            total += count.sum();
+        }
+
+        return total;
+    }
+
+    public long getReconnects()
+    {
+        return this.reconnects.sum();
+    }
+
+    public long getErrors()
+    {
+        return this.errors.sum();
+    }
+
+    public long getUnmatchedResponses()
+    {
+        return this.unmatchedResponses.sum();
+    }
+
+    /**
+     * @return The live histogram of request round trip times or null if no request has been answered yet.
+     */
+    public LatencyHistogram getRequestLatency()
+    {
+        return this.requestLatency;
+    }
+
+    public long getHandshakeTimeouts()
+    {
+        return this.handshakeTimeouts.sum();
+    }
+
+    /**
+     * @return The live histogram of handshake durations or null if no handshake has completed yet.
+     */
+    public LatencyHistogram getHandshakeLatency()
+    {
+        return this.handshakeLatency;
+    }
+
+    /**
+     * Creates a snapshot of all counters together with the given current queue depths.
+     *
+     * @param inboundQueueDepth
+     * @param outboundQueueDepth
+     * @param pendingRequests
+     * @return
+     */
+    public MetricsSnapshot snapshot(int inboundQueueDepth, int outboundQueueDepth, int pendingRequests)
+    {
+        long[] in = new long[TYPES.length];
+        long[] out = new long[TYPES.length];
+
+        for (int i = 0; i < TYPES.length; i ++ )
+        {
+            in[i] = this.messagesIn[i].sum();
+            out[i] = this.messagesOut[i].sum();
+        }
+
+        LatencyHistogram histogram = this.requestLatency;
+        LatencyHistogram handshakes = this.handshakeLatency;
+
+        return new MetricsSnapshot(getBytesIn(),
+                                   getBytesOut(),
+                                   in,
+                                   out,
+                                   getReconnects(),
+                                   getErrors(),
+                                   getUnmatchedResponses(),
+                                   histogram == null ? new LatencyHistogram() : histogram.copy(),
+                                   getHandshakeTimeouts(),
+                                   handshakes == null ? new LatencyHistogram() : handshakes.copy(),
+                                   inboundQueueDepth,
+                                   outboundQueueDepth,
+                                   pendingRequests);
+    }
+}
@@ -0,0 +1,203 @@
+package bt.remote.socket.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of latencies in nanoseconds with log linear buckets, similar to an HdrHistogram.
+ *
+ * <p>
+ * Values below 64 ns are counted exactly. Above that every power of two is split into 32 equally sized buckets, so
+ * the reported percentiles are at most about 3% larger than the recorded values. Values above
+ * {@link #MAX_VALUE} (about 18 minutes) are counted as {@link #MAX_VALUE}.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class LatencyHistogram
+{
+    /** The number of bits used to split each power of two. */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** The largest value that can be recorded. */
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    /** The number of recorded values per bucket. */
+    protected final AtomicLongArray counts;
+
+    /** The sum of all recorded values. */
+    protected final LongAdder sum;
+
+    public LatencyHistogram()
+    {
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.sum = new LongAdder();
+    }
+
+    private static int indexOf(long value)
+    {
+        if (value < 2 * SUB_BUCKET_COUNT)
+        {
+            return (int)value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int)(value >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    private static long lowerBound(int index)
+    {
+        if (index < 2 * SUB_BUCKET_COUNT)
+        {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        return (long)(index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+    }
+
+    private static long upperBound(int index)
+    {
+        return index + 1 < BUCKET_COUNT ? lowerBound(index + 1) - 1 : MAX_VALUE;
+    }
+
+    /**
+     * Records a single value.
+     *
+     * @param nanos
+     */
+    public void record(long nanos)
+    {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        this.counts.incrementAndGet(indexOf(value));
+        this.sum.add(value);
+    }
+
+    /**
+     * @return The number of recorded values.
+     */
+    public long getCount()
+    {
+        long count = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i ++ )
+        {
+            count += this.counts.get(i);
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the value below which the given percentage of recorded values falls.
+     *
+     * @param percentile
+     *            Between 0 and 100.
+     * @return The value in nanoseconds or 0 if nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        long count = getCount();
+
+        if (count == 0)
+        {
+            return 0;
+        }
+
+        long target = Math.max(1, (long)Math.ceil(Math.min(100, percentile) / 100 * count));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i ++ )
+        {
+            seen += this.counts.get(i);
+
+            if (seen >= target)
+            {
+                return upperBound(i);
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * @return The smallest recorded value, rounded down to its bucket, or 0 if nothing has been recorded.
+     */
+    public long getMin()
+    {
+        for (int i = 0; i < BUCKET_COUNT; i ++ )
+        {
+            if (this.counts.get(i) > 0)
+            {
+                return lowerBound(i);
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * @return The largest recorded value, rounded up to its bucket, or 0 if nothing has been recorded.
+     */
+    public long getMax()
+    {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i -- )
+        {
+            if (this.counts.get(i) > 0)
+            {
+                return upperBound(i);
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * @return The exact mean of the recorded values or 0 if nothing has been recorded.
+     */
+    public double getMean()
+    {
+        long count = getCount();
+        return count == 0 ? 0 : (double)this.sum.sum() / count;
+    }
+
+    /**
+     * Creates a copy of the current state, so that several values can be read consistently while recording goes on.
+     *
+     * @return
+     */
+    public LatencyHistogram copy()
+    {
+        var copy = new LatencyHistogram();
+
+        for (int i = 0; i < BUCKET_COUNT; i ++ )
+        {
+            long count = this.counts.get(i);
+
+            if (count > 0)
+            {
+                copy.counts.set(i, count);
+            }
+        }
+
+        copy.sum.add(this.sum.sum());
+        return copy;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("count=%d mean=%.1fus p50=%dus p99=%dus p999=%dus max=%dus",
+                             getCount(),
+                             getMean() / 1000,
+                             TimeUnit.NANOSECONDS.toMicros(getValueAtPercentile(50)),
+                             TimeUnit.NANOSECONDS.toMicros(getValueAtPercentile(99)),
+                             TimeUnit.NANOSECONDS.toMicros(getValueAtPercentile(99.9)),
+                             TimeUnit.NANOSECONDS.toMicros(getMax()));
+    }
+}
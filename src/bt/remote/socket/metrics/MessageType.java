@@ -0,0 +1,58 @@
+package bt.remote.socket.metrics;
+
+import bt.remote.socket.data.Acknowledge;
+import bt.remote.socket.data.KeepAlive;
+import bt.remote.socket.data.Request;
+import bt.remote.socket.data.Response;
+
+/**
+ * The kinds of messages that are counted separately by {@link ConnectionMetrics}.
+ *
+ * @author &#8904
+ */
+public enum MessageType
+{
+    /** A plain object sent without request semantics. */
+    OBJECT,
+
+    /** A {@link Request}. */
+    REQUEST,
+
+    /** A {@link Response}. */
+    RESPONSE,
+
+    /** A {@link KeepAlive} or a ping or pong {@link bt.remote.socket.data.ControlFrame control frame}. */
+    KEEP_ALIVE,
+
+    /** An {@link Acknowledge}. */
+    ACKNOWLEDGE,
+
+    /** A message of a raw client. */
+    RAW;
+
+    /**
+     * @param message
+     * @return The type of the given exchanged object.
+     */
+    public static MessageType of(Object message)
+    {
+        if (message instanceof Request)
+        {
+            return REQUEST;
+        }
+        else if (message instanceof Response)
+        {
+            return RESPONSE;
+        }
+        else if (message instanceof KeepAlive)
+        {
+            return KEEP_ALIVE;
+        }
+        else if (message instanceof Acknowledge)
+        {
+            return ACKNOWLEDGE;
+        }
+
+        return OBJECT;
+    }
+}
@@ -0,0 +1,212 @@
+package bt.remote.socket.metrics;
+
+/**
+ * An immutable copy of {@link ConnectionMetrics} and the queue depths at a point in time.
+ *
+ * @author &#8904
+ */
+public class MetricsSnapshot
+{
+    private final long timestamp;
+
+    private final long bytesIn;
+
+    private final long bytesOut;
+
+    private final long[] messagesIn;
+
+    private final long[] messagesOut;
+
+    private final long reconnects;
+
+    private final long errors;
+
+    private final long unmatchedResponses;
+
+    private final LatencyHistogram requestLatency;
+
+    private final long handshakeTimeouts;
+
+    private final LatencyHistogram handshakeLatency;
+
+    private final int inboundQueueDepth;
+
+    private final int outboundQueueDepth;
+
+    private final int pendingRequests;
+
+    public MetricsSnapshot(long bytesIn,
+                           long bytesOut,
+                           long[] messagesIn,
+                           long[] messagesOut,
+                           long reconnects,
+                           long errors,
+                           long unmatchedResponses,
+                           LatencyHistogram requestLatency,
+                           long handshakeTimeouts,
+                           LatencyHistogram handshakeLatency,
+                           int inboundQueueDepth,
+                           int outboundQueueDepth,
+                           int pendingRequests)
+    {
+        this.timestamp = System.currentTimeMillis();
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.messagesIn = messagesIn;
+        this.messagesOut = messagesOut;
+        this.reconnects = reconnects;
+        this.errors = errors;
+        this.unmatchedResponses = unmatchedResponses;
+        this.requestLatency = requestLatency;
+        this.handshakeTimeouts = handshakeTimeouts;
+        this.handshakeLatency = handshakeLatency;
+        this.inboundQueueDepth = inboundQueueDepth;
+        this.outboundQueueDepth = outboundQueueDepth;
+        this.pendingRequests = pendingRequests;
+    }
+
+    /**
+     * @return The time in milliseconds at which this snapshot was taken.
+     */
+    public long getTimestamp()
+    {
+        return this.timestamp;
+    }
+
+    public long getBytesIn()
+    {
+        return this.bytesIn;
+    }
+
+    public long getBytesOut()
+    {
+        return this.bytesOut;
+    }
+
+    public long getMessagesIn(MessageType type)
+    {
+        return this.messagesIn[type.ordinal()];
+    }
+
+    public long getMessagesOut(MessageType type)
+    {
+        return this.messagesOut[type.ordinal()];
+    }
+
+    /**
+     * @return The number of received messages of all types.
+     */
+    public long getMessagesIn()
+    {
+        long total = 0;
+
+        for (long count : this.messagesIn)
+        {
+            total += count;
+        }
+
+        return total;
+    }
+
+    /**
+     * @return The number of sent messages of all types.
+     */
+    public long getMessagesOut()
+    {
+        long total = 0;
+
+        for (long count : this.messagesOut)
+        {
+            total += count;
+        }
+
+        return total;
+    }
+
+    public long getReconnects()
+    {
+        return this.reconnects;
+    }
+
+    /**
+     * @return The number of exception events.
+     */
+    public long getErrors()
+    {
+        return this.errors;
+    }
+
+    /**
+     * @return The number of responses that were dropped because no pending request was waiting for them.
+     */
+    public long getUnmatchedResponses()
+    {
+        return this.unmatchedResponses;
+    }
+
+    /**
+     * @return The round trip times of requests that received a response. Must not be recorded into.
+     */
+    public LatencyHistogram getRequestLatency()
+    {
+        return this.requestLatency;
+    }
+
+    /**
+     * @return The number of connections closed because they did not complete their handshake in time.
+     */
+    public long getHandshakeTimeouts()
+    {
+        return this.handshakeTimeouts;
+    }
+
+    /**
+     * @return The durations of completed handshakes. Must not be recorded into.
+     */
+    public LatencyHistogram getHandshakeLatency()
+    {
+        return this.handshakeLatency;
+    }
+
+    /**
+     * @return The number of received messages that were waiting for or in processing.
+     */
+    public int getInboundQueueDepth()
+    {
+        return this.inboundQueueDepth;
+    }
+
+    /**
+     * @return The number of messages that were waiting to be written.
+     */
+    public int getOutboundQueueDepth()
+    {
+        return this.outboundQueueDepth;
+    }
+
+    /**
+     * @return The number of requests that were waiting for a response.
+     */
+    public int getPendingRequests()
+    {
+        return this.pendingRequests;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "bytesIn=" + this.bytesIn
+               + " bytesOut=" + this.bytesOut
+               + " messagesIn=" + getMessagesIn()
+               + " messagesOut=" + getMessagesOut()
+               + " reconnects=" + this.reconnects
+               + " errors=" + this.errors
+               + " unmatchedResponses=" + this.unmatchedResponses
+               + " inboundQueue=" + this.inboundQueueDepth
+               + " outboundQueue=" + this.outboundQueueDepth
+               + " pendingRequests=" + this.pendingRequests
+               + " handshakeTimeouts=" + this.handshakeTimeouts
+               + " requestLatency[" + this.requestLatency + "]"
+               + " handshakeLatency[" + this.handshakeLatency + "]";
+    }
+}
@@ -0,0 +1,194 @@
+package bt.remote.socket.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the round trip times of a connection.
+ *
+ * <p>
+ * The smoothed round trip time and its variation are calculated like the TCP retransmission timer in RFC 6298, so
+ * {@link #getTimeout(long, long)} adapts to the actual latency of the connection instead of relying on a fixed value.
+ * Minimum, maximum and percentiles are taken from a sliding window of the most recent samples.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class RttEstimator
+{
+    /** The number of samples in the sliding window if none is specified. */
+    public static final int DEFAULT_WINDOW_SIZE = 64;
+
+    /** The factor that a new sample contributes to the smoothed round trip time. */
+    private static final double ALPHA = 1.0 / 8;
+
+    /** The factor that a new sample contributes to the round trip time variation. */
+    private static final double BETA = 1.0 / 4;
+
+    /** The most recent samples in nanoseconds, used as ring buffer. */
+    protected final long[] window;
+
+    /** The total number of recorded samples. */
+    protected long count;
+
+    /** The smoothed round trip time in nanoseconds. */
+    protected double smoothed;
+
+    /** The round trip time variation in nanoseconds. */
+    protected double variation;
+
+    /** The most recent sample in nanoseconds. */
+    protected long last;
+
+    public RttEstimator()
+    {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize
+     *            The number of recent samples used for {@link #getMin()}, {@link #getMax()} and
+     *            {@link #getPercentile(double)}.
+     */
+    public RttEstimator(int windowSize)
+    {
+        this.window = new long[Math.max(1, windowSize)];
+    }
+
+    /**
+     * Records a single round trip time.
+     *
+     * @param nanos
+     */
+    public synchronized void record(long nanos)
+    {
+        long sample = Math.max(0, nanos);
+
+        if (this.count == 0)
+        {
+            this.smoothed = sample;
+            this.variation = sample / 2.0;
+        }
+        else
+        {
+            this.variation = (1 - BETA) * this.variation + BETA * Math.abs(this.smoothed - sample);
+            this.smoothed = (1 - ALPHA) * this.smoothed + ALPHA * sample;
+        }
+
+        this.window[(int)(this.count % this.window.length)] = sample;
+        this.count ++ ;
+        this.last = sample;
+    }
+
+    /**
+     * Gets a timeout that a healthy connection is very unlikely to exceed, calculated as smoothed round trip time plus
+     * four times its variation.
+     *
+     * @param minNanos
+     *            The lower bound of the returned timeout.
+     * @param maxNanos
+     *            The upper bound of the returned timeout, which is also returned as long as nothing has been recorded.
+     * @return The timeout in nanoseconds.
+     */
+    public synchronized long getTimeout(long minNanos, long maxNanos)
+    {
+        if (this.count == 0)
+        {
+            return maxNanos;
+        }
+
+        long timeout = (long)(this.smoothed + 4 * this.variation);
+        return Math.min(maxNanos, Math.max(minNanos, timeout));
+    }
+
+    /**
+     * @return The total number of recorded samples.
+     */
+    public synchronized long getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * @return The most recent sample in nanoseconds or 0 if nothing has been recorded.
+     */
+    public synchronized long getLast()
+    {
+        return this.last;
+    }
+
+    /**
+     * @return The smoothed round trip time in nanoseconds or 0 if nothing has been recorded.
+     */
+    public synchronized long getSmoothed()
+    {
+        return (long)this.smoothed;
+    }
+
+    /**
+     * @return The round trip time variation in nanoseconds or 0 if nothing has been recorded.
+     */
+    public synchronized long getVariation()
+    {
+        return (long)this.variation;
+    }
+
+    /**
+     * @return The smallest sample within the window or 0 if nothing has been recorded.
+     */
+    public long getMin()
+    {
+        long[] samples = samples();
+        return samples.length == 0 ? 0 : samples[0];
+    }
+
+    /**
+     * @return The largest sample within the window or 0 if nothing has been recorded.
+     */
+    public long getMax()
+    {
+        long[] samples = samples();
+        return samples.length == 0 ? 0 : samples[samples.length - 1];
+    }
+
+    /**
+     * Gets the sample below which the given percentage of the samples within the window falls.
+     *
+     * @param percentile
+     *            Between 0 and 100.
+     * @return The sample in nanoseconds or 0 if nothing has been recorded.
+     */
+    public long getPercentile(double percentile)
+    {
+        long[] samples = samples();
+
+        if (samples.length == 0)
+        {
+            return 0;
+        }
+
+        int index = (int)Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * samples.length) - 1;
+        return samples[Math.max(0, index)];
+    }
+
+    /**
+     * @return A sorted copy of the samples within the window.
+     */
+    protected synchronized long[] samples()
+    {
+        long[] samples = Arrays.copyOf(this.window, (int)Math.min(this.count, this.window.length));
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("srtt=%dus rttvar=%dus min=%dus p99=%dus max=%dus",
+                             TimeUnit.NANOSECONDS.toMicros(getSmoothed()),
+                             TimeUnit.NANOSECONDS.toMicros(getVariation()),
+                             TimeUnit.NANOSECONDS.toMicros(getMin()),
+                             TimeUnit.NANOSECONDS.toMicros(getPercentile(99)),
+                             TimeUnit.NANOSECONDS.toMicros(getMax()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,249 @@
+package bt.remote.socket.nio;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import bt.log.Log;
+import bt.types.Killable;
+import bt.utils.Exceptions;
+
+/**
+ * An event loop that owns a single {@link Selector} and multiplexes reads and writes of all
+ * {@link SelectorServerClient clients} registered to it on one thread.
+ *
+ * <p>
+ * Registrations and write requests from other threads are queued and picked up by the loop after waking up the
+ * selector, so the selector is only ever touched by the loop thread.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class SelectorLoop implements Runnable, Killable
+{
+    /** The selector that all registered channels are multiplexed on. */
+    protected Selector selector;
+
+    /** Clients that should be registered with the selector on the next iteration. */
+    protected Queue<SelectorServerClient> pendingRegistrations;
+
+    /** Clients that have queued outgoing data since the last iteration. */
+    protected Queue<SelectorServerClient> pendingWrites;
+
+    /** Tasks that should be run on the loop thread on the next iteration. */
+    protected Queue<Runnable> pendingTasks;
+
+    /** A flag to indicate if this loop is currently or should be running. */
+    protected volatile boolean running;
+
+    /**
+     * Creates a new loop and opens its selector.
+     *
+     * @throws IOException
+     */
+    public SelectorLoop() throws IOException
+    {
+        this.selector = Selector.open();
+        this.pendingRegistrations = new ConcurrentLinkedQueue<>();
+        this.pendingWrites = new ConcurrentLinkedQueue<>();
+        this.pendingTasks = new ConcurrentLinkedQueue<>();
+        this.running = true;
+    }
+
+    /**
+     * Registers the channel of the given client for reading. The actual registration happens on the loop thread.
+     *
+     * @param client
+     */
+    public void register(SelectorServerClient client)
+    {
+        this.pendingRegistrations.add(client);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Instructs the loop to write the queued data of the given client.
+     *
+     * @param client
+     */
+    public void requestWrite(SelectorServerClient client)
+    {
+        this.pendingWrites.add(client);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Runs the given task on the loop thread.
+     *
+     * @param task
+     */
+    public void execute(Runnable task)
+    {
+        this.pendingTasks.add(task);
+        this.selector.wakeup();
+    }
+
+    /**
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run()
+    {
+        while (this.running)
+        {
+            try
+            {
+                this.selector.select();
+            }
+            catch (IOException e)
+            {
+                // a broken selector fails on every call, so the loop stops instead of spinning
+                Log.error("Selector failed, stopping selector loop", e);
+                this.running = false;
+                killClients();
+                break;
+            }
+
+            processRegistrations();
+            processWrites();
+            processTasks();
+
+            Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+
+            while (keys.hasNext())
+            {
+                SelectionKey key = keys.next();
+                keys.remove();
+
+                var client = (SelectorServerClient)key.attachment();
+
+                try
+                {
+                    if (key.isValid() && key.isReadable())
+                    {
+                        client.onReadable();
+                    }
+
+                    if (key.isValid() && key.isWritable() && client.onWritable())
+                    {
+                        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                    }
+                }
+                catch (RuntimeException e)
+                {
+                    // only the failing client is dropped, the other clients of this loop keep running
+                    client.onFailure(e);
+                }
+            }
+        }
+
+        Exceptions.ignoreThrow(() -> this.selector.close());
+    }
+
+    protected void processRegistrations()
+    {
+        SelectorServerClient client;
+
+        while ((client = this.pendingRegistrations.poll()) != null)
+        {
+            try
+            {
+                client.getChannel().register(this.selector, SelectionKey.OP_READ, client);
+            }
+            catch (ClosedChannelException e)
+            {
+                client.kill();
+            }
+            catch (RuntimeException e)
+            {
+                client.onFailure(e);
+            }
+        }
+    }
+
+    protected void processWrites()
+    {
+        SelectorServerClient client;
+
+        while ((client = this.pendingWrites.poll()) != null)
+        {
+            SelectionKey key = client.getChannel().keyFor(this.selector);
+
+            try
+            {
+                if (key != null && key.isValid() && !client.onWritable())
+                {
+                    // the socket buffer is full, continue once the channel becomes writable again
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                client.onFailure(e);
+            }
+        }
+    }
+
+    protected void processTasks()
+    {
+        Runnable task;
+
+        while ((task = this.pendingTasks.poll()) != null)
+        {
+            try
+            {
+                task.run();
+            }
+            catch (RuntimeException e)
+            {
+                // tasks that belong to a client handle their own failures, see SelectorServerClient#execute
+                Log.error("Selector loop task failed", e);
+            }
+        }
+    }
+
+    /**
+     * Kills all clients of this loop. Called when the selector has failed and none of them can be served anymore.
+     */
+    protected void killClients()
+    {
+        List<SelectorServerClient> clients = new ArrayList<>(this.pendingRegistrations);
+        this.pendingRegistrations.clear();
+
+        for (SelectionKey key : this.selector.keys())
+        {
+            clients.add((SelectorServerClient)key.attachment());
+        }
+
+        for (SelectorServerClient client : clients)
+        {
+            Exceptions.ignoreThrow(() -> client.kill());
+        }
+    }
+
+    /**
+     * @return The number of channels currently registered with this loop.
+     */
+    public int getRegisteredCount()
+    {
+        return this.selector.isOpen() ? this.selector.keys().size() : 0;
+    }
+
+    /**
+     * Stops the loop and closes the selector. Channels that are still registered are not closed.
+     *
+     * @see bt.types.Killable#kill()
+     */
+    @Override
+    public void kill()
+    {
+        this.running = false;
+        this.selector.wakeup();
+    }
+}
@@ -0,0 +1,284 @@
+package bt.remote.socket.nio;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Objects;
+
+import bt.remote.socket.Server;
+import bt.remote.socket.ServerClient;
+import bt.remote.socket.data.FrameCodec;
+import bt.remote.socket.data.SerializationFrameCodec;
+import bt.remote.socket.evnt.server.NewClientConnection;
+import bt.remote.socket.evnt.server.UnspecifiedServerException;
+import bt.remote.socket.exc.WrappedException;
+import bt.utils.Exceptions;
+import bt.utils.Null;
+
+/**
+ * A {@link Server} that multiplexes all connections over a small number of {@link SelectorLoop selector loops}
+ * instead of using blocking reader threads for every connection.
+ *
+ * <p>
+ * Connections are exchanged as length prefixed frames, so clients need to use the same {@link FrameCodec} via
+ * {@link bt.remote.socket.ObjectClient#setFrameCodec(FrameCodec)}. The default codec is a
+ * {@link SerializationFrameCodec}, a {@link bt.remote.socket.data.BinaryFrameCodec BinaryFrameCodec} produces
+ * considerably smaller frames.
+ * </p>
+ *
+ * <p>
+ * To customize which type of clients will be created you can override
+ * {@link SelectorServer#createClient(SocketChannel, SelectorLoop)}.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class SelectorServer extends Server
+{
+    /** The non blocking channel used to receive connections. */
+    protected ServerSocketChannel serverChannel;
+
+    /** The selector that waits for new connections. */
+    protected Selector acceptSelector;
+
+    /** The loops that accepted connections are distributed to. */
+    protected SelectorLoop[] loops;
+
+    /** The index of the loop that receives the next connection. */
+    private int nextLoop;
+
+    /**
+     * Creates a new server bound to the given port that uses one selector loop per available processor.
+     *
+     * @param port
+     *            The port to listen on.
+     * @throws IOException
+     */
+    public SelectorServer(int port) throws IOException
+    {
+        this(port, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new server bound to the given port.
+     *
+     * @param port
+     *            The port to listen on.
+     * @param loopCount
+     *            The number of selector loops that connections are distributed to.
+     * @throws IOException
+     */
+    public SelectorServer(int port, int loopCount) throws IOException
+    {
+        this(port, loopCount, DEFAULT_BACKLOG, null);
+    }
+
+    /**
+     * Creates a new server bound to the given address and port. Accepting only hands connections to the loops, so a
+     * single acceptor thread is used.
+     *
+     * @param port
+     *            The port to listen on.
+     * @param loopCount
+     *            The number of selector loops that connections are distributed to.
+     * @param backlog
+     *            The maximum number of connections waiting to be accepted.
+     * @param bindAddress
+     *            The local address to listen on or null for all local addresses.
+     * @throws IOException
+     */
+    public SelectorServer(int port, int loopCount, int backlog, InetAddress bindAddress) throws IOException
+    {
+        super(port, backlog, bindAddress, 1);
+        this.loops = new SelectorLoop[Math.max(1, loopCount)];
+        this.frameCodec = new SerializationFrameCodec();
+        this.acceptSelector = Selector.open();
+        this.serverChannel.register(this.acceptSelector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Opens a non blocking {@link ServerSocketChannel} and returns its socket.
+     */
+    @Override
+    protected ServerSocket createServerSocket(int port) throws IOException
+    {
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(this.bindAddress, port), this.backlog);
+        this.serverChannel.configureBlocking(false);
+        return this.serverChannel.socket();
+    }
+
+    /**
+     * Waits until at least one connection can be accepted and hands all pending connections to the selector loops.
+     */
+    @Override
+    protected boolean awaitConnection() throws IOException
+    {
+        boolean connected = false;
+
+        if (this.serverChannel.isOpen() && this.acceptSelector.select() > 0)
+        {
+            this.acceptSelector.selectedKeys().clear();
+            SocketChannel channel;
+
+            while ((channel = this.serverChannel.accept()) != null)
+            {
+                this.acceptedConnections.increment();
+                initializeClient(channel);
+
+                connected = true;
+            }
+        }
+
+        return connected;
+    }
+
+    /**
+     * Creates, configures and starts the client for a newly accepted channel. Like for the blocking {@link Server}
+     * the client is only added to the client registry once it has been started.
+     *
+     * <p>
+     * If any of these steps fails the channel is closed and the client is killed, so that a failed connection neither
+     * leaks its channel nor stays registered. The failure does not stop accepting further connections.
+     * </p>
+     *
+     * @param channel
+     */
+    protected void initializeClient(SocketChannel channel)
+    {
+        ServerClient client = null;
+
+        try
+        {
+            channel.configureBlocking(false);
+            client = createClient(channel, nextLoop());
+            configureClient(client);
+            client.start();
+            this.clients.add(client);
+
+            if (!client.isConnected())
+            {
+                // the client was killed before it was registered, so its own removal did not find it
+                removeClient(client);
+                return;
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            ServerClient failed = client;
+            Exceptions.ignoreThrow(() -> channel.close());
+
+            if (failed != null)
+            {
+                Exceptions.ignoreThrow(() -> failed.kill());
+            }
+
+            if (this.running)
+            {
+                Exception reason = e instanceof WrappedException ? (Exception)e.getCause() : e;
+                dispatchExceptionEvent(new UnspecifiedServerException(this, reason), false);
+            }
+
+            return;
+        }
+
+        this.eventDispatcher.dispatch(new NewClientConnection(this, client));
+    }
+
+    /**
+     * Called by {@link SelectorServer#awaitConnection()} whenever a new connection is accepted.
+     *
+     * <p>
+     * The default implementation of this method simply creates and returns a new instance of
+     * {@link SelectorServerClient}.
+     * </p>
+     *
+     * @param channel
+     * @param loop
+     *            The loop that the client should be registered with.
+     * @return
+     * @throws IOException
+     */
+    protected SelectorServerClient createClient(SocketChannel channel, SelectorLoop loop) throws IOException
+    {
+        return new SelectorServerClient(channel, loop, this.frameCodec);
+    }
+
+    /**
+     * Sets the codec used by all clients created after this call. Unlike the blocking {@link Server} this server
+     * always requires a codec.
+     *
+     * @param frameCodec
+     */
+    @Override
+    public void setFrameCodec(FrameCodec frameCodec)
+    {
+        super.setFrameCodec(Objects.requireNonNull(frameCodec, "frameCodec must not be null"));
+    }
+
+    protected SelectorLoop nextLoop()
+    {
+        SelectorLoop loop = this.loops[this.nextLoop];
+        this.nextLoop = (this.nextLoop + 1) % this.loops.length;
+        return loop;
+    }
+
+    /**
+     * Starts all selector loops and the accepting thread.
+     */
+    @Override
+    public void start()
+    {
+        for (int i = 0; i < this.loops.length; i ++ )
+        {
+            try
+            {
+                this.loops[i] = new SelectorLoop();
+            }
+            catch (IOException e)
+            {
+                dispatchExceptionEvent(new UnspecifiedServerException(this, e), true);
+                return;
+            }
+
+            this.executor.execute(this.loops[i], "Selector-Loop-" + i + " " + this.serverSocket.getLocalPort());
+        }
+
+        super.start();
+    }
+
+    @Override
+    public void run()
+    {
+        super.run();
+        Exceptions.ignoreThrow(() -> this.acceptSelector.close());
+    }
+
+    /**
+     * Closes the channel and stops all selector loops after killing the connected clients.
+     */
+    @Override
+    public void kill()
+    {
+        super.kill();
+        this.acceptSelector.wakeup();
+
+        for (var loop : this.loops)
+        {
+            Null.checkKill(loop);
+        }
+    }
+
+    /**
+     * @return the selector loops of this server.
+     */
+    public SelectorLoop[] getLoops()
+    {
+        return this.loops;
+    }
+}
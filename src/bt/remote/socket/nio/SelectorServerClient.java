@@ -0,0 +1,479 @@
+package bt.remote.socket.nio;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import bt.remote.socket.HandshakeState;
+import bt.remote.socket.ServerClient;
+import bt.remote.socket.data.ControlFrame;
+import bt.remote.socket.data.EncodedMessage;
+import bt.remote.socket.data.FrameCodec;
+import bt.remote.socket.evnt.client.ClientConnectionLost;
+import bt.remote.socket.evnt.client.UnspecifiedClientException;
+import bt.remote.socket.metrics.MessageType;
+import bt.remote.socket.thread.OverflowPolicy;
+import bt.utils.Exceptions;
+import bt.utils.Null;
+
+/**
+ * A {@link ServerClient} that does not own any threads. Its non blocking {@link SocketChannel} is registered with a
+ * {@link SelectorLoop} which reads and writes length prefixed frames on behalf of the client.
+ *
+ * @author &#8904
+ */
+public class SelectorServerClient extends ServerClient
+{
+    /** The maximum number of buffers written with a single gathering write. */
+    private static final int MAX_GATHERING_WRITE = 64;
+
+    /** The non blocking channel of this connection. */
+    protected SocketChannel channel;
+
+    /** The loop that this client is registered with. */
+    protected SelectorLoop loop;
+
+    /** Buffer holding received bytes that do not form a complete frame yet. Taken from the heap buffer pool. */
+    protected ByteBuffer readBuffer;
+
+    /** Encoded frames waiting to be written by the loop. */
+    protected Queue<ByteBuffer> writeQueue;
+
+    /** Indicates whether the loop has already been asked to write the queued frames. */
+    protected AtomicBoolean writeRequested;
+
+    /** Indicates that reading is paused because the inbound queue is full. */
+    protected AtomicBoolean readPaused;
+
+    /**
+     * Creates a new instance for the given non blocking channel.
+     *
+     * @param channel
+     * @param loop
+     *            The loop that the channel will be registered with once {@link #start()} is called.
+     * @param frameCodec
+     *            The codec used to encode and decode frames.
+     * @throws IOException
+     */
+    public SelectorServerClient(SocketChannel channel, SelectorLoop loop, FrameCodec frameCodec) throws IOException
+    {
+        super(channel.socket());
+        this.channel = channel;
+        this.loop = loop;
+        this.frameCodec = frameCodec;
+        this.readBuffer = this.bufferPool.acquire(8192);
+        this.writeQueue = new ConcurrentLinkedQueue<>();
+        this.writeRequested = new AtomicBoolean();
+        this.readPaused = new AtomicBoolean();
+    }
+
+    /**
+     * The channel is already connected and frames are read directly from it, so no streams are created and there is no
+     * handshake to wait for.
+     */
+    @Override
+    protected void setupConnection() throws IOException
+    {
+        this.controlFrames = true;
+        this.handshakeState.set(HandshakeState.ESTABLISHED);
+    }
+
+    /**
+     * Bounds the inbound queue of this client.
+     *
+     * <p>
+     * Blocking the loop thread would stall every connection of the loop, so {@link OverflowPolicy#BLOCK} is
+     * implemented by no longer reading from this client's channel until its queue has room again.
+     * </p>
+     */
+    @Override
+    public void setInboundQueue(int capacity, OverflowPolicy policy)
+    {
+        super.setInboundQueue(capacity, policy);
+
+        if (this.inboundLimit != null && policy == OverflowPolicy.BLOCK)
+        {
+            this.inboundLimit.setReleaseListener(() ->
+            {
+                if (this.readPaused.compareAndSet(true, false))
+                {
+                    execute(this::resumeReading);
+                }
+            });
+        }
+    }
+
+    /**
+     * Registers this client with its {@link SelectorLoop} instead of starting a reader thread. Keep alives are
+     * scheduled on the shared timer wheel like for every other client.
+     */
+    @Override
+    protected void startThreads()
+    {
+        this.loop.register(this);
+        startKeepAlives();
+    }
+
+    @Override
+    protected void sendObject(Object obj) throws IOException
+    {
+        if (!this.channel.isOpen())
+        {
+            throw new SocketException("Channel is closed");
+        }
+
+        if (obj instanceof EncodedMessage)
+        {
+            // the shared frame is enqueued as read only view, which the pool refuses once it has been written
+            this.metrics.messageSent(((EncodedMessage)obj).getType());
+            enqueue(((EncodedMessage)obj).getFrameBuffer(this.frameCodec));
+            return;
+        }
+
+        byte[] frame = this.frameCodec.encode(obj);
+        ByteBuffer buffer = this.bufferPool.acquire(frame.length + 4);
+        buffer.putInt(frame.length);
+        buffer.put(frame);
+        buffer.flip();
+
+        this.metrics.messageSent(MessageType.of(obj));
+        enqueue(buffer);
+    }
+
+    /**
+     * Queues the control frame like any other frame. Unlike blocking clients a pong is queued right away on the loop
+     * thread, since queueing never blocks.
+     */
+    @Override
+    protected void sendControlFrame(int code) throws IOException
+    {
+        if (!this.channel.isOpen())
+        {
+            throw new SocketException("Channel is closed");
+        }
+
+        ByteBuffer buffer = this.bufferPool.acquire(4);
+        buffer.putInt(code);
+        buffer.flip();
+
+        this.metrics.messageSent(MessageType.KEEP_ALIVE);
+        enqueue(buffer);
+    }
+
+    @Override
+    protected void handleControlFrame(int code) throws IOException
+    {
+        if (code == ControlFrame.PING)
+        {
+            this.lastInbound = System.nanoTime();
+            this.metrics.messageReceived(MessageType.KEEP_ALIVE);
+            sendControlFrame(ControlFrame.PONG);
+        }
+        else
+        {
+            super.handleControlFrame(code);
+        }
+    }
+
+    /**
+     * Adds the given encoded frame to the {@link #writeQueue} and asks the loop to write it.
+     *
+     * @param buffer
+     */
+    protected void enqueue(ByteBuffer buffer)
+    {
+        this.writeQueue.add(buffer);
+        this.metrics.addBytesOut(buffer.remaining());
+
+        if (this.writeRequested.compareAndSet(false, true))
+        {
+            this.loop.requestWrite(this);
+        }
+    }
+
+    /**
+     * Reads all currently available bytes from the channel and dispatches every complete frame.
+     */
+    @Override
+    protected void readData() throws IOException
+    {
+        int bytes = this.channel.read(this.readBuffer);
+
+        if (bytes == -1)
+        {
+            throw new EOFException("Reached end of stream");
+        }
+
+        this.metrics.addBytesIn(bytes);
+
+        this.readBuffer.flip();
+        int required = 0;
+
+        while (this.readBuffer.remaining() >= 4)
+        {
+            int length = this.readBuffer.getInt(this.readBuffer.position());
+
+            if (length < 0)
+            {
+                this.readBuffer.position(this.readBuffer.position() + 4);
+                handleControlFrame(length);
+                continue;
+            }
+
+            if (length > FrameCodec.DEFAULT_MAX_FRAME_LENGTH)
+            {
+                throw new StreamCorruptedException("Invalid frame length " + length);
+            }
+
+            if (this.readBuffer.remaining() < length + 4)
+            {
+                required = length + 4;
+                break;
+            }
+
+            if (mustPauseReading())
+            {
+                break;
+            }
+
+            int start = this.readBuffer.position() + 4;
+            this.readBuffer.position(start + length);
+
+            try
+            {
+                Object incoming = this.frameCodec.decode(this.readBuffer.array(), this.readBuffer.arrayOffset() + start, length);
+                processIncoming(incoming);
+            }
+            catch (ClassNotFoundException e)
+            {
+                dispatchExceptionEvent(new UnspecifiedClientException(this, e), false);
+            }
+        }
+
+        this.readBuffer.compact();
+
+        if (required > this.readBuffer.capacity())
+        {
+            ByteBuffer larger = this.bufferPool.acquire(required);
+            this.readBuffer.flip();
+            larger.put(this.readBuffer);
+            this.bufferPool.release(this.readBuffer);
+            this.readBuffer = larger;
+        }
+    }
+
+    /**
+     * Checks whether the inbound queue is full and pauses reading if so. Must be called on the loop thread.
+     *
+     * @return true if reading has been paused.
+     */
+    protected boolean mustPauseReading()
+    {
+        if (this.inboundLimit == null || this.singleThreadProcessing || this.inboundLimit.getPolicy() != OverflowPolicy.BLOCK
+            || this.inboundLimit.hasCapacity())
+        {
+            return false;
+        }
+
+        SelectionKey key = this.channel.keyFor(this.loop.selector);
+
+        if (key != null && key.isValid())
+        {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        }
+
+        this.readPaused.set(true);
+
+        // a release might have happened before the flag was set
+        if (this.inboundLimit.hasCapacity() && this.readPaused.compareAndSet(true, false))
+        {
+            execute(this::resumeReading);
+        }
+
+        return true;
+    }
+
+    /**
+     * Resumes reading after it has been paused. Frames that are already buffered are processed right away, since the
+     * channel might not become readable again for them.
+     */
+    protected void resumeReading()
+    {
+        SelectionKey key = this.channel.keyFor(this.loop.selector);
+
+        if (key != null && key.isValid())
+        {
+            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            onReadable();
+        }
+    }
+
+    /**
+     * Runs the given task on the loop thread. A {@link RuntimeException} thrown by the task only kills this client.
+     *
+     * @param task
+     */
+    protected void execute(Runnable task)
+    {
+        this.loop.execute(() ->
+        {
+            try
+            {
+                task.run();
+            }
+            catch (RuntimeException e)
+            {
+                onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Called by the loop whenever the channel has data to read.
+     */
+    void onReadable()
+    {
+        try
+        {
+            readData();
+        }
+        catch (IOException e)
+        {
+            if (this.running)
+            {
+                dispatchExceptionEvent(new ClientConnectionLost(this, e), false);
+                kill();
+            }
+        }
+    }
+
+    /**
+     * Called by the loop if handling this client threw an unexpected exception, for example from a codec or from a
+     * processor running on the loop thread. Kills this client so that the loop can continue serving the others.
+     *
+     * @param e
+     */
+    void onFailure(RuntimeException e)
+    {
+        if (this.running)
+        {
+            dispatchExceptionEvent(new UnspecifiedClientException(this, e), false);
+            kill();
+        }
+    }
+
+    /**
+     * Called by the loop to write queued frames.
+     *
+     * @return true if all queued frames have been written, false if the channel could not accept all of them.
+     */
+    boolean onWritable()
+    {
+        this.writeRequested.set(false);
+        ByteBuffer[] buffers = new ByteBuffer[MAX_GATHERING_WRITE];
+
+        try
+        {
+            while (!this.writeQueue.isEmpty())
+            {
+                int count = 0;
+
+                for (ByteBuffer buffer : this.writeQueue)
+                {
+                    buffers[count ++ ] = buffer;
+
+                    if (count == buffers.length)
+                    {
+                        break;
+                    }
+                }
+
+                this.channel.write(buffers, 0, count);
+
+                for (int i = 0; i < count; i ++ )
+                {
+                    if (buffers[i].hasRemaining())
+                    {
+                        return false;
+                    }
+
+                    this.bufferPool.release(this.writeQueue.poll());
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            if (this.running)
+            {
+                dispatchExceptionEvent(new ClientConnectionLost(this, e), false);
+                kill();
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The number of encoded frames waiting to be written by the loop.
+     */
+    @Override
+    public int getOutboundQueueSize()
+    {
+        return this.writeQueue.size();
+    }
+
+    @Override
+    public boolean isConnected()
+    {
+        return this.channel.isConnected() && this.channel.isOpen();
+    }
+
+    @Override
+    protected void closeResources()
+    {
+        Exceptions.ignoreThrow(() -> Null.checkClose(this.channel));
+        super.closeResources();
+
+        // the loop might still be using the buffers, so they are returned to the pool by the loop thread
+        this.loop.execute(this::releaseBuffers);
+    }
+
+    /**
+     * Returns the read buffer and all unsent frames to the pool. Must be called on the loop thread after the channel
+     * has been closed.
+     */
+    protected void releaseBuffers()
+    {
+        this.bufferPool.release(this.readBuffer);
+        this.readBuffer = null;
+        ByteBuffer buffer;
+
+        while ((buffer = this.writeQueue.poll()) != null)
+        {
+            this.bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * @return the channel
+     */
+    public SocketChannel getChannel()
+    {
+        return this.channel;
+    }
+
+    /**
+     * @return the loop
+     */
+    public SelectorLoop getLoop()
+    {
+        return this.loop;
+    }
+}
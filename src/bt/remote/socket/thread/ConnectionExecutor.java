@@ -0,0 +1,43 @@
+package bt.remote.socket.thread;
+
+/**
+ * Executes the tasks of clients and servers.
+ *
+ * <p>
+ * Two kinds of tasks are distinguished: long running loops such as the reading loop of a client, which usually spend
+ * most of their time blocked on socket operations, and short tasks such as processing a single incoming message.
+ * </p>
+ *
+ * @author &#8904
+ * @see PlatformThreadExecutor
+ * @see VirtualThreadExecutor
+ */
+public interface ConnectionExecutor
+{
+    /**
+     * Executes a long running task in its own thread.
+     *
+     * @param task
+     * @param name
+     *            The name of the executing thread.
+     */
+    public void execute(Runnable task, String name);
+
+    /**
+     * Executes a short task such as the processing of a single message.
+     *
+     * @param task
+     */
+    public void executeCached(Runnable task);
+
+    /**
+     * Gets a {@link VirtualThreadExecutor} if the running JVM supports virtual threads or a
+     * {@link PlatformThreadExecutor} otherwise.
+     *
+     * @return
+     */
+    public static ConnectionExecutor virtualIfSupported()
+    {
+        return VirtualThreadExecutor.isSupported() ? new VirtualThreadExecutor() : new PlatformThreadExecutor();
+    }
+}
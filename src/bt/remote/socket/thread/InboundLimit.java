@@ -0,0 +1,160 @@
+package bt.remote.socket.thread;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import bt.remote.socket.exc.InboundQueueFullException;
+
+/**
+ * Bounds the number of incoming messages of a single connection that have been read but not yet processed.
+ *
+ * <p>
+ * The reading thread {@link #admit() admits} every message before handing it to the processing executor, and the
+ * processing task {@link #release() releases} it once it is done. If the limit is reached the configured
+ * {@link OverflowPolicy} decides whether the reader waits, drops the message or fails.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class InboundLimit
+{
+    private final int capacity;
+
+    private final OverflowPolicy policy;
+
+    private final Semaphore permits;
+
+    private final AtomicInteger maxDepth;
+
+    private final LongAdder dropped;
+
+    /** Called after every release, may be null. */
+    private volatile Runnable releaseListener;
+
+    /**
+     * @param capacity
+     *            The maximum number of messages that may wait for or be in processing at the same time.
+     * @param policy
+     *            Decides what happens with messages that exceed the capacity.
+     */
+    public InboundLimit(int capacity, OverflowPolicy policy)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+
+        this.capacity = capacity;
+        this.policy = policy;
+        this.permits = new Semaphore(capacity);
+        this.maxDepth = new AtomicInteger();
+        this.dropped = new LongAdder();
+    }
+
+    /**
+     * Admits a new message according to the {@link OverflowPolicy}.
+     *
+     * @return true if the message was admitted and has to be {@link #release() released} once processed, false if it
+     *         was dropped.
+     * @throws InboundQueueFullException
+     *             If the limit is reached and the policy is {@link OverflowPolicy#FAIL}.
+     * @throws InterruptedIOException
+     *             If the thread was interrupted while waiting.
+     */
+    public boolean admit() throws InboundQueueFullException, InterruptedIOException
+    {
+        if (this.policy == OverflowPolicy.BLOCK)
+        {
+            try
+            {
+                this.permits.acquire();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for room in the inbound queue");
+            }
+        }
+        else if (!this.permits.tryAcquire())
+        {
+            if (this.policy == OverflowPolicy.FAIL)
+            {
+                throw new InboundQueueFullException("Inbound queue is full (" + this.capacity + " messages)");
+            }
+
+            this.dropped.increment();
+            return false;
+        }
+
+        this.maxDepth.accumulateAndGet(getDepth(), Math::max);
+        return true;
+    }
+
+    /**
+     * Releases a previously admitted message.
+     */
+    public void release()
+    {
+        this.permits.release();
+        Runnable listener = this.releaseListener;
+
+        if (listener != null)
+        {
+            listener.run();
+        }
+    }
+
+    /**
+     * @return true if a message could be admitted right now without waiting.
+     */
+    public boolean hasCapacity()
+    {
+        return this.permits.availablePermits() > 0;
+    }
+
+    /**
+     * Sets a listener that is called after every {@link #release()}, for example to resume reading.
+     *
+     * @param releaseListener
+     */
+    public void setReleaseListener(Runnable releaseListener)
+    {
+        this.releaseListener = releaseListener;
+    }
+
+    /**
+     * @return The number of messages that are currently waiting for or in processing.
+     */
+    public int getDepth()
+    {
+        return this.capacity - this.permits.availablePermits();
+    }
+
+    /**
+     * @return The highest depth reached so far.
+     */
+    public int getMaxDepth()
+    {
+        return this.maxDepth.get();
+    }
+
+    /**
+     * @return The number of messages dropped because of {@link OverflowPolicy#DROP}.
+     */
+    public long getDropped()
+    {
+        return this.dropped.sum();
+    }
+
+    public int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    public OverflowPolicy getPolicy()
+    {
+        return this.policy;
+    }
+}
@@ -0,0 +1,22 @@
+package bt.remote.socket.thread;
+
+/**
+ * Defines what happens with an incoming message if the inbound queue of a connection is full.
+ *
+ * @author &#8904
+ * @see InboundLimit
+ */
+public enum OverflowPolicy
+{
+    /**
+     * The reading thread waits until there is room in the queue. Since no more data is read from the socket, TCP flow
+     * control eventually slows down the sender.
+     */
+    BLOCK,
+
+    /** The message is discarded and counted as dropped. */
+    DROP,
+
+    /** The connection is closed. */
+    FAIL
+}
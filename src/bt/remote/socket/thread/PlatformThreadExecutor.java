@@ -0,0 +1,23 @@
+package bt.remote.socket.thread;
+
+import bt.scheduler.Threads;
+
+/**
+ * The default {@link ConnectionExecutor} which runs all tasks on platform threads managed by {@link Threads}.
+ *
+ * @author &#8904
+ */
+public class PlatformThreadExecutor implements ConnectionExecutor
+{
+    @Override
+    public void execute(Runnable task, String name)
+    {
+        Threads.get().execute(task, name);
+    }
+
+    @Override
+    public void executeCached(Runnable task)
+    {
+        Threads.get().executeCached(task);
+    }
+}
@@ -0,0 +1,44 @@
+package bt.remote.socket.thread;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the shared, bounded thread pool used for ordered message processing.
+ *
+ * @author &#8904
+ * @see bt.remote.socket.Client#setOrderedProcessing(boolean)
+ */
+public final class ProcessingPool
+{
+    private static ExecutorService instance;
+
+    private ProcessingPool()
+    {
+    }
+
+    /**
+     * Gets the shared pool, which has one daemon thread per available processor. It is created on first use.
+     *
+     * @return
+     */
+    public static synchronized ExecutorService get()
+    {
+        if (instance == null)
+        {
+            int threads = Runtime.getRuntime().availableProcessors();
+            var count = new AtomicInteger();
+            instance = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task ->
+            {
+                Thread thread = new Thread(task, "Processing-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return instance;
+    }
+}
@@ -0,0 +1,99 @@
+package bt.remote.socket.thread;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import bt.log.Log;
+
+/**
+ * Runs tasks one after another in submission order on a shared {@link Executor}.
+ *
+ * <p>
+ * At most one task of a serial executor runs at any time, but different serial executors on the same pool run in
+ * parallel. A busy serial executor gives its pool thread back after a batch of tasks so that others get their turn.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class SerialExecutor implements Executor
+{
+    /** The maximum number of tasks run before the pool thread is given back. */
+    private static final int MAX_BATCH = 64;
+
+    private final Executor pool;
+
+    private final Queue<Runnable> tasks;
+
+    /** Indicates whether a drain of the task queue has been submitted to the pool. */
+    private final AtomicBoolean scheduled;
+
+    /**
+     * @param pool
+     *            The executor that runs the tasks.
+     */
+    public SerialExecutor(Executor pool)
+    {
+        this.pool = pool;
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean();
+    }
+
+    @Override
+    public void execute(Runnable task)
+    {
+        this.tasks.add(task);
+        schedule();
+    }
+
+    private void schedule()
+    {
+        if (!this.tasks.isEmpty() && this.scheduled.compareAndSet(false, true))
+        {
+            try
+            {
+                this.pool.execute(this::drain);
+            }
+            catch (RejectedExecutionException e)
+            {
+                this.scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain()
+    {
+        try
+        {
+            Runnable task;
+
+            for (int i = 0; i < MAX_BATCH && (task = this.tasks.poll()) != null; i ++ )
+            {
+                try
+                {
+                    task.run();
+                }
+                catch (RuntimeException e)
+                {
+                    Log.error("Serial task failed", e);
+                }
+            }
+        }
+        finally
+        {
+            this.scheduled.set(false);
+            schedule();
+        }
+    }
+
+    /**
+     * @return The number of tasks waiting to be run.
+     */
+    public int getQueueSize()
+    {
+        return this.tasks.size();
+    }
+}
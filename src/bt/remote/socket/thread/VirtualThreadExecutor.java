@@ -0,0 +1,108 @@
+package bt.remote.socket.thread;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * A {@link ConnectionExecutor} that starts a new virtual thread for every task.
+ *
+ * <p>
+ * A virtual thread that is blocked on a socket operation does not occupy an OS thread, which makes it possible to
+ * serve a very large number of connections with blocking reads. Virtual threads are looked up reflectively, so this
+ * class can be compiled and loaded on JVMs without support for them. Use {@link #isSupported()} to check whether the
+ * running JVM provides them.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class VirtualThreadExecutor implements ConnectionExecutor
+{
+    /** Handle to Thread.ofVirtual(), null if virtual threads are not supported. */
+    private static final MethodHandle OF_VIRTUAL;
+
+    /** Handle to Thread.Builder.name(String). */
+    private static final MethodHandle NAME;
+
+    /** Handle to Thread.Builder.start(Runnable). */
+    private static final MethodHandle START;
+
+    static
+    {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle start = null;
+
+        try
+        {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Class<?> ofVirtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            var lookup = MethodHandles.publicLookup();
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualBuilder));
+            name = lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class));
+            start = lookup.findVirtual(builder, "start", MethodType.methodType(Thread.class, Runnable.class));
+
+            // throws UnsupportedOperationException if virtual threads are a disabled preview feature
+            ofVirtual.invoke();
+        }
+        catch (Throwable t)
+        {
+            ofVirtual = null;
+        }
+
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        START = start;
+    }
+
+    /**
+     * @return true if the running JVM supports virtual threads.
+     */
+    public static boolean isSupported()
+    {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @throws UnsupportedOperationException
+     *             If the running JVM does not support virtual threads.
+     */
+    public VirtualThreadExecutor()
+    {
+        if (!isSupported())
+        {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this JVM");
+        }
+    }
+
+    @Override
+    public void execute(Runnable task, String name)
+    {
+        start(task, name);
+    }
+
+    @Override
+    public void executeCached(Runnable task)
+    {
+        start(task, "Virtual-Task");
+    }
+
+    protected Thread start(Runnable task, String name)
+    {
+        try
+        {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(), name);
+            return (Thread)START.invoke(builder, task);
+        }
+        catch (RuntimeException | Error e)
+        {
+            throw e;
+        }
+        catch (Throwable t)
+        {
+            throw new IllegalStateException(t);
+        }
+    }
+}
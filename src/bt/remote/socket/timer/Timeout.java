@@ -0,0 +1,85 @@
+package bt.remote.socket.timer;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import bt.log.Log;
+
+/**
+ * A handle to a task scheduled on a {@link TimerWheel}.
+ *
+ * @author &#8904
+ */
+public final class Timeout
+{
+    static final int PENDING = 0;
+    static final int CANCELLED = 1;
+    static final int EXPIRED = 2;
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    private final TimerWheel wheel;
+
+    private final Runnable task;
+
+    /** The {@link System#nanoTime()} at which the task should run. */
+    final long deadline;
+
+    volatile int state;
+
+    // the following fields are only accessed by the thread of the wheel
+
+    long rounds;
+    int bucket;
+    boolean inBucket;
+    Timeout next;
+    Timeout prev;
+
+    Timeout(TimerWheel wheel, Runnable task, long deadline)
+    {
+        this.wheel = wheel;
+        this.task = task;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Cancels the task if it has not run yet.
+     *
+     * @return true if this call cancelled the task.
+     */
+    public boolean cancel()
+    {
+        if (STATE.compareAndSet(this, PENDING, CANCELLED))
+        {
+            this.wheel.cancelled(this);
+            return true;
+        }
+
+        return false;
+    }
+
+    public boolean isCancelled()
+    {
+        return this.state == CANCELLED;
+    }
+
+    public boolean isExpired()
+    {
+        return this.state == EXPIRED;
+    }
+
+    void expire()
+    {
+        if (STATE.compareAndSet(this, PENDING, EXPIRED))
+        {
+            try
+            {
+                this.task.run();
+            }
+            catch (RuntimeException e)
+            {
+                // a failing task must not stop the wheel
+                Log.error("Timer task failed", e);
+            }
+        }
+    }
+}
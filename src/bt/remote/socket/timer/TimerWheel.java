@@ -0,0 +1,278 @@
+package bt.remote.socket.timer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import bt.remote.socket.thread.ConnectionExecutor;
+import bt.runtime.InstanceKiller;
+import bt.scheduler.Threads;
+import bt.types.Killable;
+import bt.utils.Exceptions;
+
+/**
+ * A hashed timer wheel that runs delayed tasks of any number of connections from a single thread.
+ *
+ * <p>
+ * Time is divided into ticks and every scheduled task is placed into the bucket of the tick it expires in. Scheduling
+ * and cancelling are O(1) and do not contend on a shared lock, at the cost of a precision of one tick. Expired tasks
+ * are run on the thread of the wheel, so they should be short and hand off longer work to another thread.
+ * </p>
+ *
+ * <p>
+ * The {@link #get() shared instance} serves the connections of every {@link ConnectionExecutor}, so it does not use any
+ * of them and always runs on a platform daemon thread of {@link Threads}. Other instances can be started through a
+ * specific executor via {@link #start(ConnectionExecutor)}.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class TimerWheel implements Killable, Runnable
+{
+    /** The shared instance returned by {@link #get()}. */
+    private static volatile TimerWheel instance;
+
+    /** The duration of a single tick in nanoseconds. */
+    private final long tickNanos;
+
+    /** The buckets of the wheel, each being a doubly linked list of timeouts. */
+    private final Timeout[] buckets;
+
+    private final int mask;
+
+    /** Timeouts that have been scheduled but not yet placed into a bucket. */
+    private final Queue<Timeout> scheduled;
+
+    /** Timeouts that have been cancelled but not yet removed from their bucket. */
+    private final Queue<Timeout> cancelled;
+
+    /** The {@link System#nanoTime()} at which the wheel was started. */
+    private final long startTime;
+
+    /** The number of ticks that have been processed. */
+    private long tick;
+
+    /** A flag to indicate if the wheel is currently or should be running. */
+    private volatile boolean running;
+
+    /**
+     * Gets the shared instance, which uses a tick of 10 milliseconds. It is created and started on first use and
+     * replaced by a new instance if it has been killed.
+     *
+     * @return
+     */
+    public static TimerWheel get()
+    {
+        TimerWheel wheel = instance;
+
+        if (wheel != null && wheel.running)
+        {
+            return wheel;
+        }
+
+        synchronized (TimerWheel.class)
+        {
+            wheel = instance;
+
+            if (wheel == null || !wheel.running)
+            {
+                wheel = new TimerWheel(10, TimeUnit.MILLISECONDS, 512);
+                wheel.start();
+                instance = wheel;
+            }
+
+            return wheel;
+        }
+    }
+
+    /**
+     * Creates a new wheel. The wheel needs to be {@link #start() started} before tasks are executed.
+     *
+     * @param tickDuration
+     *            The duration of a single tick.
+     * @param unit
+     *            The unit of the tick duration.
+     * @param bucketCount
+     *            The number of buckets, rounded up to the next power of two.
+     */
+    public TimerWheel(long tickDuration, TimeUnit unit, int bucketCount)
+    {
+        int count = Integer.highestOneBit(Math.max(1, bucketCount - 1) << 1);
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        this.buckets = new Timeout[count];
+        this.mask = count - 1;
+        this.scheduled = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+        this.startTime = System.nanoTime();
+        InstanceKiller.killOnShutdown(this);
+    }
+
+    /**
+     * Starts the thread of this wheel as a platform daemon thread of {@link Threads}.
+     */
+    public void start()
+    {
+        this.running = true;
+        Threads.get().execute(this, "TimerWheel");
+    }
+
+    /**
+     * Starts the thread of this wheel through the given executor.
+     *
+     * @param executor
+     */
+    public void start(ConnectionExecutor executor)
+    {
+        this.running = true;
+        executor.execute(this, "TimerWheel");
+    }
+
+    /**
+     * Schedules the given task to run once after the given delay.
+     *
+     * @param task
+     * @param delay
+     * @param unit
+     * @return A handle to cancel the task.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit)
+    {
+        var timeout = new Timeout(this, task, System.nanoTime() + Math.max(0, unit.toNanos(delay)));
+        this.scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run()
+    {
+        while (this.running)
+        {
+            long deadline = this.startTime + (this.tick + 1) * this.tickNanos;
+            long sleep = deadline - System.nanoTime();
+
+            if (sleep > 0)
+            {
+                Exceptions.ignoreThrow(() -> TimeUnit.NANOSECONDS.sleep(sleep));
+                continue;
+            }
+
+            removeCancelled();
+            placeScheduled();
+            expire(this.buckets[(int)(this.tick & this.mask)], deadline);
+            this.tick ++ ;
+        }
+    }
+
+    private void removeCancelled()
+    {
+        Timeout timeout;
+
+        while ((timeout = this.cancelled.poll()) != null)
+        {
+            remove(timeout);
+        }
+    }
+
+    private void placeScheduled()
+    {
+        Timeout timeout;
+
+        // limit the work per tick so that a burst of new timeouts does not delay expiration
+        for (int i = 0; i < 100_000 && (timeout = this.scheduled.poll()) != null; i ++ )
+        {
+            if (timeout.state != Timeout.PENDING)
+            {
+                continue;
+            }
+
+            long ticks = Math.max(this.tick, (timeout.deadline - this.startTime) / this.tickNanos);
+            timeout.rounds = (ticks - this.tick) / this.buckets.length;
+            timeout.bucket = (int)(ticks & this.mask);
+            add(timeout);
+        }
+    }
+
+    private void expire(Timeout timeout, long now)
+    {
+        while (timeout != null)
+        {
+            Timeout next = timeout.next;
+
+            if (timeout.rounds <= 0 && timeout.deadline - now <= 0)
+            {
+                remove(timeout);
+                timeout.expire();
+            }
+            else
+            {
+                timeout.rounds -- ;
+            }
+
+            timeout = next;
+        }
+    }
+
+    private void add(Timeout timeout)
+    {
+        Timeout head = this.buckets[timeout.bucket];
+        timeout.next = head;
+
+        if (head != null)
+        {
+            head.prev = timeout;
+        }
+
+        this.buckets[timeout.bucket] = timeout;
+        timeout.inBucket = true;
+    }
+
+    private void remove(Timeout timeout)
+    {
+        if (!timeout.inBucket)
+        {
+            return;
+        }
+
+        if (timeout.prev != null)
+        {
+            timeout.prev.next = timeout.next;
+        }
+        else
+        {
+            this.buckets[timeout.bucket] = timeout.next;
+        }
+
+        if (timeout.next != null)
+        {
+            timeout.next.prev = timeout.prev;
+        }
+
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.inBucket = false;
+    }
+
+    void cancelled(Timeout timeout)
+    {
+        this.cancelled.add(timeout);
+    }
+
+    /**
+     * Stops the thread of this wheel. Pending tasks are not executed.
+     *
+     * @see bt.types.Killable#kill()
+     */
+    @Override
+    public void kill()
+    {
+        this.running = false;
+
+        if (!InstanceKiller.isActive())
+        {
+            InstanceKiller.unregister(this);
+        }
+    }
+}
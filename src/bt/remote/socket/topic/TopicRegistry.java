@@ -0,0 +1,169 @@
+package bt.remote.socket.topic;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import bt.remote.socket.ServerClient;
+
+/**
+ * A concurrent index of which clients are subscribed to which topics.
+ *
+ * <p>
+ * Every topic maps to the set of its subscribers and every client to the set of its topics, so that publishing only
+ * touches the subscribers of a topic and removing a client only touches its own topics. Topics without subscribers
+ * are removed, so that short lived topics do not accumulate. All changes for a client update both indexes while
+ * holding the entry of that client, which keeps them consistent under frequent subscription changes.
+ * </p>
+ *
+ * @author &#8904
+ */
+public class TopicRegistry
+{
+    /** The subscribers of every topic that has at least one. */
+    protected final ConcurrentHashMap<String, Set<ServerClient>> subscribers;
+
+    /** The topics of every client that is subscribed to at least one. */
+    protected final ConcurrentHashMap<ServerClient, Set<String>> topics;
+
+    public TopicRegistry()
+    {
+        this.subscribers = new ConcurrentHashMap<>();
+        this.topics = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Subscribes the given client to the given topic.
+     *
+     * @param topic
+     * @param client
+     * @return true if the client was not subscribed to the topic yet.
+     */
+    public boolean subscribe(String topic, ServerClient client)
+    {
+        boolean[] added = new boolean[1];
+
+        this.topics.compute(client, (c, clientTopics) ->
+        {
+            if (clientTopics == null)
+            {
+                clientTopics = ConcurrentHashMap.newKeySet();
+            }
+
+            if (clientTopics.add(topic))
+            {
+                addSubscriber(topic, client);
+                added[0] = true;
+            }
+
+            return clientTopics;
+        });
+
+        return added[0];
+    }
+
+    /**
+     * Removes the subscription of the given client to the given topic.
+     *
+     * @param topic
+     * @param client
+     * @return true if the client was subscribed to the topic.
+     */
+    public boolean unsubscribe(String topic, ServerClient client)
+    {
+        boolean[] removed = new boolean[1];
+
+        this.topics.computeIfPresent(client, (c, clientTopics) ->
+        {
+            if (clientTopics.remove(topic))
+            {
+                removeSubscriber(topic, client);
+                removed[0] = true;
+            }
+
+            return clientTopics.isEmpty() ? null : clientTopics;
+        });
+
+        return removed[0];
+    }
+
+    /**
+     * Removes all subscriptions of the given client. Called by the server once a client disconnects.
+     *
+     * @param client
+     */
+    public void unsubscribeAll(ServerClient client)
+    {
+        this.topics.computeIfPresent(client, (c, clientTopics) ->
+        {
+            for (String topic : clientTopics)
+            {
+                removeSubscriber(topic, client);
+            }
+
+            return null;
+        });
+    }
+
+    private void addSubscriber(String topic, ServerClient client)
+    {
+        // added within the compute, since a concurrent removal drops the set of the topic once it is empty
+        this.subscribers.compute(topic, (t, clients) ->
+        {
+            if (clients == null)
+            {
+                clients = ConcurrentHashMap.newKeySet();
+            }
+
+            clients.add(client);
+            return clients;
+        });
+    }
+
+    private void removeSubscriber(String topic, ServerClient client)
+    {
+        this.subscribers.computeIfPresent(topic, (t, clients) ->
+        {
+            clients.remove(client);
+            return clients.isEmpty() ? null : clients;
+        });
+    }
+
+    /**
+     * @param topic
+     * @return A live view of the subscribers of the given topic. Empty if the topic has no subscribers.
+     */
+    public Set<ServerClient> getSubscribers(String topic)
+    {
+        Set<ServerClient> clients = this.subscribers.get(topic);
+        return clients == null ? Collections.emptySet() : Collections.unmodifiableSet(clients);
+    }
+
+    /**
+     * @param client
+     * @return A live view of the topics that the given client is subscribed to.
+     */
+    public Set<String> getTopics(ServerClient client)
+    {
+        Set<String> clientTopics = this.topics.get(client);
+        return clientTopics == null ? Collections.emptySet() : Collections.unmodifiableSet(clientTopics);
+    }
+
+    /**
+     * @return A live view of all topics that have at least one subscriber.
+     */
+    public Set<String> getTopics()
+    {
+        return Collections.unmodifiableSet(this.subscribers.keySet());
+    }
+
+    /**
+     * @param topic
+     * @return The number of subscribers of the given topic.
+     */
+    public int getSubscriberCount(String topic)
+    {
+        Set<ServerClient> clients = this.subscribers.get(topic);
+        return clients == null ? 0 : clients.size();
+    }
+}
\ No newline at end of file
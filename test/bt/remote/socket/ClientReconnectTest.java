@@ -0,0 +1,116 @@
+package bt.remote.socket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import bt.remote.socket.evnt.client.ClientExceptionEvent;
+import bt.remote.socket.evnt.client.ClientReconnectFailed;
+
+/**
+ * @author &#8904
+ */
+public class ClientReconnectTest
+{
+    @Test
+    public void everyFailedAttemptIsRetriedUntilThePolicyIsExhausted() throws Exception
+    {
+        List<IOException> failures = List.of(new SocketTimeoutException("Handshake timed out"),
+                                             new NoRouteToHostException("No route to host"),
+                                             new SocketException("Connection reset"),
+                                             new EOFException());
+
+        for (IOException failure : failures)
+        {
+            var client = new FailingClient(failure);
+            client.autoReconnect(ReconnectPolicy.immediate(3));
+            client.reconnect();
+
+            assertTrue(client.failed.await(5, TimeUnit.SECONDS), failure.toString());
+            assertEquals(3, client.attempts.get(), failure.toString());
+            assertSame(failure, client.failureReason);
+            assertFalse(client.isReconnecting());
+        }
+    }
+
+    @Test
+    public void reconnectSucceedsAfterFailedAttempts() throws Exception
+    {
+        var client = new FailingClient(new SocketTimeoutException("Handshake timed out"));
+        client.succeedAfter = 2;
+        client.autoReconnect(ReconnectPolicy.immediate(5));
+        client.reconnect();
+
+        assertTrue(client.reconnected.await(5, TimeUnit.SECONDS));
+        assertEquals(3, client.attempts.get());
+        assertEquals(1, client.getMetrics().getReconnects());
+        assertFalse(client.isReconnecting());
+        client.kill();
+    }
+
+    /**
+     * A client whose connection attempts fail with a fixed exception.
+     */
+    private static class FailingClient extends Client
+    {
+        final IOException failure;
+        final AtomicInteger attempts = new AtomicInteger();
+        final CountDownLatch failed = new CountDownLatch(1);
+        final CountDownLatch reconnected = new CountDownLatch(1);
+        volatile int succeedAfter = Integer.MAX_VALUE;
+        volatile Exception failureReason;
+
+        FailingClient(IOException failure)
+        {
+            this.failure = failure;
+        }
+
+        @Override
+        protected void setupConnection() throws IOException
+        {
+            if (this.attempts.incrementAndGet() <= this.succeedAfter)
+            {
+                throw this.failure;
+            }
+        }
+
+        @Override
+        protected void startThreads()
+        {
+        }
+
+        @Override
+        protected void reconnected()
+        {
+            this.reconnected.countDown();
+        }
+
+        @Override
+        protected void dispatchExceptionEvent(ClientExceptionEvent event, boolean requiresHandling)
+        {
+            if (event instanceof ClientReconnectFailed)
+            {
+                this.failureReason = event.getException();
+                this.failed.countDown();
+            }
+        }
+
+        @Override
+        protected void readData() throws IOException
+        {
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package bt.remote.socket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author &#8904
+ */
+public class ReconnectPolicyTest
+{
+    @Test
+    public void delayGrowsExponentiallyUpToTheMaximum()
+    {
+        var policy = new ReconnectPolicy(100, 2, 1000, false, -1, 0);
+
+        assertEquals(100, policy.getDelay(1));
+        assertEquals(200, policy.getDelay(2));
+        assertEquals(400, policy.getDelay(3));
+        assertEquals(800, policy.getDelay(4));
+        assertEquals(1000, policy.getDelay(5));
+        assertEquals(1000, policy.getDelay(100));
+        assertEquals(1000, policy.getDelay(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void attemptsBeforeTheFirstUseTheInitialDelay()
+    {
+        var policy = new ReconnectPolicy(100, 2, 1000, false, -1, 0);
+
+        assertEquals(100, policy.getDelay(0));
+        assertEquals(100, policy.getDelay(-3));
+    }
+
+    @Test
+    public void jitterStaysWithinTheCalculatedDelay()
+    {
+        var policy = ReconnectPolicy.exponential(100, 1000, -1);
+        boolean varies = false;
+        long first = policy.getDelay(4);
+
+        for (int i = 0; i < 10000; i ++ )
+        {
+            long delay = policy.getDelay(4);
+            assertTrue(delay >= 0 && delay <= 800, "delay " + delay);
+            varies |= delay != first;
+        }
+
+        assertTrue(varies);
+    }
+
+    @Test
+    public void fixedAndImmediatePolicies()
+    {
+        var fixed = ReconnectPolicy.fixed(250, 3);
+        var immediate = ReconnectPolicy.immediate(3);
+
+        for (int attempt = 1; attempt <= 10; attempt ++ )
+        {
+            assertEquals(250, fixed.getDelay(attempt));
+            assertEquals(0, immediate.getDelay(attempt));
+        }
+    }
+
+    @Test
+    public void invalidParametersAreClamped()
+    {
+        var policy = new ReconnectPolicy(-10, 0.5, -1, false, -1, 0);
+
+        assertEquals(0, policy.getInitialDelay());
+        assertEquals(1, policy.getMultiplier(), 0);
+        assertEquals(0, policy.getMaxDelay());
+        assertEquals(0, policy.getDelay(5));
+
+        // the maximum is never below the initial delay
+        assertEquals(500, new ReconnectPolicy(500, 2, 100, false, -1, 0).getDelay(3));
+    }
+
+    @Test
+    public void attemptsAreLimited()
+    {
+        var policy = ReconnectPolicy.fixed(100, 3);
+
+        assertTrue(policy.canAttempt(1, 0));
+        assertTrue(policy.canAttempt(3, 0));
+        assertFalse(policy.canAttempt(4, 0));
+    }
+
+    @Test
+    public void infiniteAttempts()
+    {
+        var policy = ReconnectPolicy.fixed(100, -1);
+
+        assertTrue(policy.canAttempt(Integer.MAX_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void durationIsLimited()
+    {
+        var policy = ReconnectPolicy.fixed(100, -1).withMaxDuration(1000);
+
+        assertTrue(policy.canAttempt(50, 999));
+        assertFalse(policy.canAttempt(1, 1000));
+
+        // both limits apply
+        var both = policy.withMaxAttempts(2);
+        assertTrue(both.canAttempt(2, 500));
+        assertFalse(both.canAttempt(3, 500));
+        assertFalse(both.canAttempt(1, 2000));
+    }
+
+    @Test
+    public void copiesKeepTheOtherSettings()
+    {
+        var policy = new ReconnectPolicy(100, 3, 5000, true, 4, 6000).withMaxAttempts(7);
+
+        assertEquals(100, policy.getInitialDelay());
+        assertEquals(3, policy.getMultiplier(), 0);
+        assertEquals(5000, policy.getMaxDelay());
+        assertTrue(policy.isJitter());
+        assertEquals(7, policy.getMaxAttempts());
+        assertEquals(6000, policy.getMaxDuration());
+    }
+}
\ No newline at end of file
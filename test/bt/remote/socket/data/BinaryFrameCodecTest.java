@@ -0,0 +1,163 @@
+package bt.remote.socket.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import bt.async.Data;
+import bt.remote.socket.exc.InvalidDataIdException;
+
+/**
+ * @author &#8904
+ */
+public class BinaryFrameCodecTest
+{
+    private final BinaryFrameCodec codec = new BinaryFrameCodec();
+
+    /** A subclass of a message type, whose additional state would be lost in a typed frame. */
+    private static class CustomRequest<T> extends Request<T>
+    {
+        CustomRequest(Data<T> data)
+        {
+            super(data);
+        }
+    }
+
+    private Object roundTrip(Object obj) throws IOException, ClassNotFoundException
+    {
+        byte[] frame = this.codec.encode(obj);
+
+        // decode from the middle of a larger array to cover the offset handling
+        byte[] padded = new byte[frame.length + 7];
+        System.arraycopy(frame, 0, padded, 3, frame.length);
+
+        return this.codec.decode(padded, 3, frame.length);
+    }
+
+    private <T extends Message> T roundTripMessage(T message) throws IOException, ClassNotFoundException
+    {
+        Object decoded = roundTrip(message);
+
+        assertSame(message.getClass(), decoded.getClass());
+        // empty ids are sent as 0
+        assertEquals(this.codec.parseId(message.getData().getID()), this.codec.parseId(((Message)decoded).getData().getID()));
+        return (T)decoded;
+    }
+
+    @Test
+    public void messagesKeepTypeIdAndPayload() throws Exception
+    {
+        assertEquals("a", roundTripMessage(new Request<>(new Data<>(String.class, "a", "1"))).getData().get());
+        assertEquals(Integer.valueOf(42), roundTripMessage(new Response<>(new Data<>(Integer.class, 42, "2"))).getData().get());
+        assertEquals(Long.valueOf(7), roundTripMessage(new Acknowledge<>(new Data<>(Long.class, 7L, "3"))).getData().get());
+        assertEquals("Ping", roundTripMessage(new KeepAlive<>(new Data<>(String.class, "Ping", "4"))).getData().get());
+        assertEquals(Long.toString(Long.MAX_VALUE),
+                     roundTripMessage(new Request<>(new Data<>(String.class, "x", Long.toString(Long.MAX_VALUE)))).getData().getID());
+    }
+
+    @Test
+    public void primitivePayloads() throws Exception
+    {
+        Object[] payloads = { 1.5d, 2.5f, (short)3, (byte)4, true, 'c', "", "\u00e4\u20ac" };
+
+        for (Object payload : payloads)
+        {
+            var decoded = roundTripMessage(new Request<>(new Data<>(payload.getClass(), payload, "5")));
+            assertEquals(payload, decoded.getData().get());
+        }
+
+        byte[] bytes = { 1, 2, 3 };
+        assertArrayEquals(bytes, (byte[])roundTripMessage(new Request<>(new Data<>(byte[].class, bytes, "6"))).getData().get());
+        assertNull(roundTripMessage(new Request<>(new Data<>(Object.class, null, "7"))).getData().get());
+    }
+
+    @Test
+    public void serializablePayloadsUseTheFallback() throws Exception
+    {
+        var payload = List.of("a", "b");
+
+        assertEquals(payload, roundTripMessage(new Response<>(new Data<>(List.class, payload, "8"))).getData().get());
+        assertEquals(payload, roundTrip(payload));
+    }
+
+    @Test
+    public void subscriptions() throws Exception
+    {
+        var subscribe = roundTripMessage(new Subscribe("prices"));
+        var unsubscribe = roundTripMessage(new Unsubscribe("prices"));
+
+        assertEquals("prices", subscribe.getTopic());
+        assertEquals("prices", unsubscribe.getTopic());
+    }
+
+    @Test
+    public void publications() throws Exception
+    {
+        var decoded = (Publication)roundTrip(new Publication<>("prices/\u00e4", 12.5d));
+
+        assertEquals("prices/\u00e4", decoded.getTopic());
+        assertEquals(12.5d, decoded.getPayload());
+        assertEquals("0", decoded.getData().getID());
+
+        var withId = (Publication)roundTrip(new Publication<>("t", new Data<>(String.class, "x", "9")));
+        assertEquals("t", withId.getTopic());
+        assertEquals("9", withId.getData().getID());
+
+        var emptyTopic = (Publication)roundTrip(new Publication<>("", "x"));
+        assertEquals("", emptyTopic.getTopic());
+    }
+
+    @Test
+    public void tooLongTopicsAreRejected()
+    {
+        String topic = "x".repeat(0x10000);
+
+        assertThrows(IllegalArgumentException.class, () -> this.codec.encode(new Publication<>(topic, "x")));
+    }
+
+    @Test
+    public void plainObjectsAndMessageSubclasses() throws Exception
+    {
+        assertEquals("plain", roundTrip("plain"));
+        assertNull(roundTrip(null));
+        assertEquals(BinaryFrameCodec.TYPE_OBJECT, this.codec.encode("plain")[0]);
+        assertEquals(BinaryFrameCodec.TYPE_OBJECT, this.codec.encode(new CustomRequest<>(new Data<>(String.class, "x", "1")))[0]);
+    }
+
+    @Test
+    public void nonNumericIdsAreRejected() throws Exception
+    {
+        var request = new Request<>(new Data<>(String.class, "x", "abc"));
+
+        assertThrows(InvalidDataIdException.class, () -> this.codec.encode(request));
+        assertThrows(InvalidDataIdException.class, () -> this.codec.parseId("12a"));
+        assertEquals(0, this.codec.parseId(null));
+        assertEquals(0, this.codec.parseId(""));
+    }
+
+    @Test
+    public void corruptedFramesAreRejected() throws Exception
+    {
+        assertThrows(StreamCorruptedException.class, () -> this.codec.decode(new byte[4], 0, 4));
+
+        byte[] frame = this.codec.encode(new Publication<>("topic", "x"));
+
+        // a topic length beyond the end of the frame
+        frame[BinaryFrameCodec.HEADER_LENGTH] = (byte)0xFF;
+        assertThrows(StreamCorruptedException.class, () -> this.codec.decode(frame, 0, frame.length));
+
+        byte[] unknown = this.codec.encode(new Request<>(new Data<>(String.class, "x", "1")));
+        unknown[0] = 99;
+        var e = assertThrows(StreamCorruptedException.class, () -> this.codec.decode(unknown, 0, unknown.length));
+        assertTrue(e.getMessage().contains("99"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,202 @@
+package bt.remote.socket.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author &#8904
+ */
+public class PendingRequestTableTest
+{
+    /** The number of stripes of the tested tables, so that colliding ids can be searched for. */
+    private static final int STRIPES = 2;
+
+    /** The initial capacity of a stripe. */
+    private static final int SLOTS = 16;
+
+    /**
+     * Mirrors the hash of the table.
+     */
+    private static long hash(long id)
+    {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * Finds ids that land in the same stripe and have the same home slot, so that they form a single probe sequence.
+     */
+    private static long[] collidingIds(int count)
+    {
+        long first = hash(1);
+        long[] ids = new long[count];
+        int found = 0;
+
+        for (long id = 1; found < count; id ++ )
+        {
+            long h = hash(id);
+
+            if ((h >>> 48) % STRIPES == (first >>> 48) % STRIPES && (h & (SLOTS - 1)) == (first & (SLOTS - 1)))
+            {
+                ids[found ++ ] = id;
+            }
+        }
+
+        return ids;
+    }
+
+    @Test
+    public void removeKeepsFollowingEntriesOfTheProbeSequence()
+    {
+        var table = new PendingRequestTable(STRIPES);
+        long[] ids = collidingIds(5);
+        List<PendingRequest> requests = new ArrayList<>();
+
+        for (long id : ids)
+        {
+            requests.add(table.register(id, 0));
+        }
+
+        // removing from the start and the middle of the sequence shifts the following entries back
+        assertSame(requests.get(0), table.remove(ids[0]));
+        assertSame(requests.get(2), table.remove(ids[2]));
+        assertNull(table.remove(ids[0]));
+        assertNull(table.remove(ids[2]));
+        assertEquals(3, table.size());
+
+        // the freed slots are reused without leaving gaps in the sequence
+        var readded = table.register(ids[0], 0);
+        assertSame(requests.get(4), table.remove(ids[4]));
+        assertSame(requests.get(1), table.remove(ids[1]));
+        assertSame(readded, table.remove(ids[0]));
+        assertSame(requests.get(3), table.remove(ids[3]));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void removeOfMissingIdReturnsNull()
+    {
+        var table = new PendingRequestTable(STRIPES);
+        long[] ids = collidingIds(3);
+        table.register(ids[0], 0);
+        table.register(ids[2], 0);
+
+        assertNull(table.remove(ids[1]));
+        assertNull(table.remove(0));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations()
+    {
+        var table = new PendingRequestTable(STRIPES);
+        Map<Long, PendingRequest> expected = new HashMap<>();
+        var random = new Random(42);
+
+        // a small key space causes many collisions, resizes and removals within probe sequences
+        for (int i = 0; i < 100000; i ++ )
+        {
+            long id = 1 + random.nextInt(300);
+
+            if (random.nextBoolean())
+            {
+                expected.put(id, table.register(id, 0));
+            }
+            else
+            {
+                assertSame(expected.remove(id), table.remove(id));
+            }
+
+            assertEquals(expected.size(), table.size());
+        }
+
+        for (long id = 1; id <= 300; id ++ )
+        {
+            assertSame(expected.get(id), table.remove(id));
+        }
+
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void idZeroIsReserved()
+    {
+        var table = new PendingRequestTable();
+
+        assertThrows(IllegalArgumentException.class, () -> table.register(0, 0));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void expireRemovesAndFailsOnlyExpiredRequests() throws Exception
+    {
+        var table = new PendingRequestTable(STRIPES);
+        long[] ids = collidingIds(40);
+        List<PendingRequest> requests = new ArrayList<>();
+
+        // expired and live requests alternate within the same probe sequence
+        for (int i = 0; i < ids.length; i ++ )
+        {
+            requests.add(table.register(ids[i], i % 2 == 0 ? 1 : 0));
+        }
+
+        Thread.sleep(20);
+
+        assertEquals(ids.length / 2, table.expire());
+        assertEquals(ids.length / 2, table.size());
+        assertEquals(0, table.expire());
+
+        for (int i = 0; i < ids.length; i ++ )
+        {
+            var request = requests.get(i);
+
+            if (i % 2 == 0)
+            {
+                assertNull(table.remove(ids[i]));
+                var e = assertThrows(IOException.class, () -> request.get(1));
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            else
+            {
+                assertFalse(request.isDone());
+                assertSame(request, table.remove(ids[i]));
+            }
+        }
+    }
+
+    @Test
+    public void failAllEmptiesTheTable()
+    {
+        var table = new PendingRequestTable();
+        List<PendingRequest> requests = new ArrayList<>();
+
+        for (long id = 1; id <= 100; id ++ )
+        {
+            requests.add(table.register(id, 0));
+        }
+
+        table.failAll(new IllegalStateException());
+
+        assertEquals(0, table.size());
+
+        for (var request : requests)
+        {
+            var e = assertThrows(IOException.class, () -> request.get(1));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
\ No newline at end of file
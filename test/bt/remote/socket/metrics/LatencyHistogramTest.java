@@ -0,0 +1,148 @@
+package bt.remote.socket.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author &#8904
+ */
+public class LatencyHistogramTest
+{
+    @Test
+    public void emptyHistogramReportsZero()
+    {
+        var histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void smallValuesAreExact()
+    {
+        for (long value = 0; value < 64; value ++ )
+        {
+            var histogram = new LatencyHistogram();
+            histogram.record(value);
+
+            assertEquals(value, histogram.getMin());
+            assertEquals(value, histogram.getMax());
+        }
+
+        // from 64 on every power of two is split into 32 buckets, the first of which hold two values each
+        var histogram = new LatencyHistogram();
+        histogram.record(65);
+
+        assertEquals(64, histogram.getMin());
+        assertEquals(65, histogram.getMax());
+    }
+
+    @Test
+    public void bucketBoundsEncloseTheRecordedValue()
+    {
+        var random = new Random(42);
+
+        for (int i = 0; i < 100000; i ++ )
+        {
+            // spread the values evenly over all powers of two
+            long value = random.nextLong() >>> (24 + random.nextInt(40));
+            var histogram = new LatencyHistogram();
+            histogram.record(value);
+
+            long min = histogram.getMin();
+            long max = histogram.getMax();
+            assertTrue(min <= value && value <= max, value + " not within [" + min + ", " + max + "]");
+            assertTrue(max - min <= Math.max(0, value / 32), "bucket of " + value + " too wide: [" + min + ", " + max + "]");
+        }
+    }
+
+    @Test
+    public void bucketsSplitPowersOfTwo()
+    {
+        var histogram = new LatencyHistogram();
+        histogram.record(1000);
+
+        // 1000 lies between 512 and 1024, which is split into 32 buckets of 16
+        assertEquals(992, histogram.getMin());
+        assertEquals(1007, histogram.getMax());
+    }
+
+    @Test
+    public void valuesOutOfRangeAreClamped()
+    {
+        var histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(0, histogram.getMin());
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+        assertEquals(2, histogram.getCount());
+    }
+
+    @Test
+    public void percentiles()
+    {
+        var histogram = new LatencyHistogram();
+
+        for (long value = 1; value <= 100; value ++ )
+        {
+            histogram.record(value);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, histogram.getMean(), 1e-9);
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(1, histogram.getValueAtPercentile(1));
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        // values from 64 on share buckets of two
+        assertEquals(91, histogram.getValueAtPercentile(90));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(101, histogram.getValueAtPercentile(100));
+        assertEquals(101, histogram.getValueAtPercentile(150));
+    }
+
+    @Test
+    public void percentilesOfSkewedValues()
+    {
+        var histogram = new LatencyHistogram();
+
+        for (int i = 0; i < 990; i ++ )
+        {
+            histogram.record(10_000);
+        }
+
+        for (int i = 0; i < 10; i ++ )
+        {
+            histogram.record(5_000_000);
+        }
+
+        long p50 = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+        long p999 = histogram.getValueAtPercentile(99.9);
+
+        assertTrue(p50 >= 10_000 && p50 <= 10_000 * 33 / 32, "p50 " + p50);
+        assertTrue(p99 >= 10_000 && p99 <= 10_000 * 33 / 32, "p99 " + p99);
+        assertTrue(p999 >= 5_000_000 && p999 <= 5_000_000L * 33 / 32, "p999 " + p999);
+    }
+
+    @Test
+    public void copyIsIndependent()
+    {
+        var histogram = new LatencyHistogram();
+        histogram.record(10);
+        var copy = histogram.copy();
+        histogram.record(20);
+
+        assertEquals(1, copy.getCount());
+        assertEquals(10, copy.getMax());
+        assertEquals(10, copy.getMean(), 0);
+        assertEquals(2, histogram.getCount());
+    }
+}
\ No newline at end of file